@@ -0,0 +1,65 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// run with -prof gc to compare gc.alloc.rate.norm against the size of Prototype and its argument array
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+    private Context context;
+    private InjectionProvider<Prototype> provider;
+
+    @Setup
+    public void setup() {
+        Dependency dependency = new Dependency();
+        provider = new InjectionProvider<>(Prototype.class);
+        Map<Component, ComponentProvider<?>> components = Map.of(
+                new Component(Dependency.class, null), c -> dependency,
+                new Component(Prototype.class, null), provider);
+
+        ContextConfig config = new ContextConfig();
+        config.instance(Dependency.class, dependency);
+        config.component(Prototype.class, Prototype.class);
+        context = config.getContext();
+        new ResolutionPlan(components, components.keySet()).link(context);
+    }
+
+    @Benchmark
+    public Prototype provider() {
+        return provider.get(context);
+    }
+
+    @Benchmark
+    public Prototype context() {
+        return context.get(ComponentRef.of(Prototype.class)).get();
+    }
+
+    public static class Dependency {
+    }
+
+    public static class SuperPrototype {
+        @Inject
+        Dependency superField;
+
+        @Inject
+        void initialize() {
+        }
+    }
+
+    public static class Prototype extends SuperPrototype {
+        @Inject
+        Dependency field;
+
+        @Inject
+        public Prototype(Dependency dependency) {
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.geektime.tdd;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DependencyCheckBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int components;
+
+    private Map<Component, ComponentProvider<?>> graph;
+
+    @Setup
+    public void setup() {
+        graph = new HashMap<>();
+        for (int i = 0; i < components; i++) {
+            int id = i;
+            List<ComponentRef<?>> dependencies = IntStream.of(i - 1, i / 2, i / 3).filter(d -> d >= 0 && d < id).distinct()
+                    .<ComponentRef<?>>mapToObj(d -> ComponentRef.of(Node.class, new Id(d))).toList();
+            graph.put(new Component(Node.class, new Id(i)), new Node(dependencies));
+        }
+    }
+
+    @Benchmark
+    public Map<Component, ComponentProvider<?>> checkDependencies() {
+        ContextConfig.checkDependencies(graph);
+        return graph;
+    }
+
+    record Node(List<ComponentRef<?>> getDependencies) implements ComponentProvider<Object> {
+        @Override
+        public Object get(final Context context) {
+            return null;
+        }
+    }
+
+    record Id(int value) implements Annotation {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Id.class;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectionEngineBenchmark {
+
+    @Param({"REFLECTION", "METHOD_HANDLE"})
+    InjectionEngine engine;
+
+    private Context context;
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig(engine);
+        config.instance(Dependency.class, new Dependency() {
+        });
+        config.component(Component.class, Component.class);
+        context = config.getContext();
+    }
+
+    @Benchmark
+    public Component prototype() {
+        return context.get(ComponentRef.of(Component.class)).get();
+    }
+
+    public interface Dependency {
+    }
+
+    public static class SuperComponent {
+        @Inject
+        Dependency superField;
+        Dependency superMethod;
+
+        @Inject
+        void install(Dependency dependency) {
+            this.superMethod = dependency;
+        }
+    }
+
+    public static class Component extends SuperComponent {
+        final Dependency constructor;
+
+        @Inject
+        Dependency field;
+        Dependency method;
+
+        @Inject
+        public Component(Dependency dependency) {
+            this.constructor = dependency;
+        }
+
+        @Inject
+        void install(Dependency dependency, Dependency another) {
+            this.method = dependency;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.geektime.tdd;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.annotation.Retention;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterceptionBenchmark {
+
+    private Calculator plain;
+    private Calculator intercepted;
+    private Operation proxy;
+    private int value;
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        config.intercept(Timed.class, Invocation::proceed);
+        config.component(Calculator.class, Calculator.class);
+        intercepted = config.getContext().get(ComponentRef.of(Calculator.class)).get();
+        plain = new Calculator();
+        Operation target = plain;
+        proxy = (Operation) Proxy.newProxyInstance(Operation.class.getClassLoader(), new Class[]{Operation.class},
+                (p, method, args) -> method.invoke(target, args));
+    }
+
+    @Benchmark
+    public int direct() {
+        return plain.timed(value++);
+    }
+
+    @Benchmark
+    public int intercepted() {
+        return intercepted.timed(value++);
+    }
+
+    @Benchmark
+    public int notIntercepted() {
+        return intercepted.untimed(value++);
+    }
+
+    @Benchmark
+    public int proxy() {
+        return proxy.timed(value++);
+    }
+
+    @Retention(RUNTIME)
+    @interface Timed {
+    }
+
+    public interface Operation {
+        int timed(int value);
+    }
+
+    public static class Calculator implements Operation {
+        @Timed
+        public int timed(int value) {
+            return value + 1;
+        }
+
+        public int untimed(int value) {
+            return value + 1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Named;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QualifierBenchmark {
+    private Context context;
+    private ComponentRef<Component> unqualified;
+    private ComponentRef<Component> qualified;
+    private Named named;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        named = Qualified.class.getDeclaredField("component").getAnnotation(Named.class);
+        ContextConfig config = new ContextConfig();
+        config.component(Component.class, Component.class);
+        config.component(Component.class, Component.class, named);
+        context = config.getContext();
+        unqualified = ComponentRef.of(Component.class);
+        qualified = ComponentRef.of(Component.class, named);
+    }
+
+    @Benchmark
+    public Component unqualified() {
+        return context.get(unqualified).get();
+    }
+
+    @Benchmark
+    public Component qualified() {
+        return context.get(qualified).get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ComponentRef<Component> createQualified() {
+        return ComponentRef.of(Component.class, named);
+    }
+
+    public static class Component {
+    }
+
+    static class Qualified {
+        @Named("qualified")
+        Component component;
+    }
+}
@@ -0,0 +1,58 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @Param({"10000"})
+    int components;
+
+    private List<ContextConfig.Binding> bindings;
+
+    @Setup
+    public void setup() {
+        bindings = new ArrayList<>(components + 1);
+        bindings.add(ContextConfig.Binding.component(StartupBenchmark.Leaf.class, StartupBenchmark.Leaf.class));
+        for (int i = 0; i < components; i++)
+            bindings.add(ContextConfig.Binding.component(Node.class, Node.class, new StartupBenchmark.IdLiteral(i)));
+    }
+
+    @Benchmark
+    public ContextConfig repeated() {
+        ContextConfig config = new ContextConfig();
+        config.component(StartupBenchmark.Leaf.class, StartupBenchmark.Leaf.class);
+        for (int i = 0; i < components; i++) config.component(Node.class, Node.class, new StartupBenchmark.IdLiteral(i));
+        return config;
+    }
+
+    @Benchmark
+    public ContextConfig bindAll() {
+        ContextConfig config = new ContextConfig();
+        config.bindAll(bindings);
+        return config;
+    }
+
+    @Benchmark
+    public Context bindAllAndGetContext() {
+        ContextConfig config = new ContextConfig();
+        config.bindAll(bindings);
+        return config.getContext();
+    }
+
+    public static class Node {
+        @Inject
+        public Node(StartupBenchmark.Leaf leaf) {
+        }
+    }
+}
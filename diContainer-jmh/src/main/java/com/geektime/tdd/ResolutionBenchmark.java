@@ -0,0 +1,109 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark {
+    @Param({"false", "true"})
+    boolean compiled;
+
+    private Context context;
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        config.component(Leaf.class, Leaf.class);
+        config.component(Shared.class, Shared.class);
+        config.component(Chain1.class, Chain1.class);
+        config.component(Chain2.class, Chain2.class);
+        config.component(Chain3.class, Chain3.class);
+        config.component(Chain4.class, Chain4.class);
+        config.component(Chain5.class, Chain5.class);
+        config.component(FanOut.class, FanOut.class);
+        config.component(ProviderInjection.class, ProviderInjection.class);
+        context = compiled ? config.getCompiledContext() : config.getContext();
+    }
+
+    @Benchmark
+    public Leaf prototype() {
+        return context.get(ComponentRef.of(Leaf.class)).get();
+    }
+
+    @Benchmark
+    public Shared singleton() {
+        return context.get(ComponentRef.of(Shared.class)).get();
+    }
+
+    @Benchmark
+    public Chain5 deepChain() {
+        return context.get(ComponentRef.of(Chain5.class)).get();
+    }
+
+    @Benchmark
+    public FanOut wideFanOut() {
+        return context.get(ComponentRef.of(FanOut.class)).get();
+    }
+
+    @Benchmark
+    public Leaf providerInjection() {
+        return context.get(ComponentRef.of(ProviderInjection.class)).get().leaf.get();
+    }
+
+    public static class Leaf {
+    }
+
+    @Singleton
+    public static class Shared {
+    }
+
+    public static class Chain1 {
+        @Inject
+        public Chain1(Leaf leaf) {
+        }
+    }
+
+    public static class Chain2 {
+        @Inject
+        public Chain2(Chain1 chain) {
+        }
+    }
+
+    public static class Chain3 {
+        @Inject
+        public Chain3(Chain2 chain) {
+        }
+    }
+
+    public static class Chain4 {
+        @Inject
+        public Chain4(Chain3 chain) {
+        }
+    }
+
+    public static class Chain5 {
+        @Inject
+        public Chain5(Chain4 chain) {
+        }
+    }
+
+    public static class FanOut {
+        @Inject
+        public FanOut(Leaf leaf, Shared shared, Chain1 chain1, Chain2 chain2, Leaf another, Shared anotherShared, Chain1 anotherChain1, Chain2 anotherChain2) {
+        }
+    }
+
+    public static class ProviderInjection {
+        @Inject
+        Provider<Leaf> leaf;
+    }
+}
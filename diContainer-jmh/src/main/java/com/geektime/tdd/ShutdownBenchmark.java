@@ -0,0 +1,97 @@
+package com.geektime.tdd;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Qualifier;
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShutdownBenchmark {
+
+    @Param({"2000"})
+    int components;
+
+    @Param({"1", "16"})
+    int threads;
+
+    private ContextConfig config;
+    private ExecutorService executor;
+    private Context context;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newFixedThreadPool(threads);
+        config = new ContextConfig();
+        config.component(Node.class, Node.class, new IdLiteral(0));
+        for (int i = 1; i < components; i++) config.component(Node.class, Child.class, new IdLiteral(i));
+    }
+
+    @Setup(Level.Invocation)
+    public void open() {
+        context = config.getContext(executor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Context close() {
+        context.close();
+        return context;
+    }
+
+    @Singleton
+    public static class Node {
+        @PreDestroy
+        void drain() {
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    @Singleton
+    public static class Child extends Node {
+        @Inject
+        @Id(0)
+        Node parent;
+    }
+
+    @Qualifier
+    @Retention(RUNTIME)
+    @interface Id {
+        int value();
+    }
+
+    record IdLiteral(int value) implements Id {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Id.class;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Id id && id.value() == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return (127 * "value".hashCode()) ^ Integer.hashCode(value);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SingletonBenchmark {
+    private Context context;
+    private SingletonProvider<Component> provider;
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        config.component(Component.class, Component.class);
+        context = config.getContext();
+        context.get(ComponentRef.of(Component.class)).get();
+
+        provider = new SingletonProvider<>(new InjectionProvider<>(Component.class));
+        provider.get(context);
+    }
+
+    @Benchmark
+    public Component provider() {
+        return provider.get(context);
+    }
+
+    @Benchmark
+    public Component context() {
+        return context.get(ComponentRef.of(Component.class)).get();
+    }
+
+    @Singleton
+    public static class Component {
+    }
+}
@@ -0,0 +1,81 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Qualifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int components;
+
+    private ContextConfig config;
+    private Context parent;
+
+    @Setup
+    public void setup() {
+        config = new ContextConfig();
+        config.component(Leaf.class, Leaf.class);
+        for (int i = 0; i < components; i++) config.component(Node.class, Node.class, new IdLiteral(i));
+        parent = config.getContext();
+    }
+
+    @Benchmark
+    public Context getContext() {
+        return config.getContext();
+    }
+
+    @Benchmark
+    public Context childContext() {
+        ContextConfig child = new ContextConfig(parent);
+        child.component(Node.class, Node.class, new IdLiteral(0));
+        return child.getContext();
+    }
+
+    public static class Leaf {
+    }
+
+    public static class Node {
+        @Inject
+        Leaf leaf;
+
+        @Inject
+        public Node(Leaf leaf) {
+        }
+    }
+
+    @Qualifier
+    @Retention(RUNTIME)
+    @interface Id {
+        int value();
+    }
+
+    record IdLiteral(int value) implements Id {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Id.class;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Id id && id.value() == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return (127 * "value".hashCode()) ^ Integer.hashCode(value);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.geektime.tdd.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.joining;
+
+class ComponentModel {
+    private static final String INJECT = "jakarta.inject.Inject";
+    private static final String QUALIFIER = "jakarta.inject.Qualifier";
+    private static final String LAZY = "com.geektime.tdd.Lazy";
+
+    private final ProcessingEnvironment env;
+    private final TypeElement component;
+    private final List<TypeElement> hierarchy;
+
+    ComponentModel(final ProcessingEnvironment env, final TypeElement component) {
+        this.env = env;
+        this.component = component;
+        this.hierarchy = hierarchy(component);
+    }
+
+    record Dependency(TypeMirror type, VariableElement element, Optional<AnnotationMirror> qualifier) {
+    }
+
+    record Injectable(TypeElement declaring, Element element, List<Dependency> required) {
+        boolean isStatic() {
+            return element.getModifiers().contains(Modifier.STATIC);
+        }
+    }
+
+    TypeElement component() {
+        return component;
+    }
+
+    String packageName() {
+        return env.getElementUtils().getPackageOf(component).getQualifiedName().toString();
+    }
+
+    String factoryName() {
+        String simpleName = env.getElementUtils().getBinaryName(component).toString().substring(packageName().isEmpty() ? 0 : packageName().length() + 1);
+        return (packageName().isEmpty() ? "" : packageName() + ".") + simpleName.replace('$', '_') + "_Factory";
+    }
+
+    TypeMirror erasure(final TypeMirror type) {
+        return env.getTypeUtils().erasure(type);
+    }
+
+    boolean validate() {
+        boolean valid = true;
+        List<ExecutableElement> injectConstructors = injectable(ElementFilter.constructorsIn(component.getEnclosedElements()));
+        if (injectConstructors.size() > 1)
+            valid = error(component, MessageFormat.format("Ambiguous injectable constructors: {0}", component));
+        for (TypeElement current : hierarchy) {
+            List<VariableElement> finalFields = injectable(ElementFilter.fieldsIn(current.getEnclosedElements())).stream()
+                    .filter(f -> f.getModifiers().contains(Modifier.FINAL)).toList();
+            if (!finalFields.isEmpty())
+                valid = error(current, MessageFormat.format("Injectable field can not be final: {0} in {1}",
+                        finalFields.stream().map(f -> f.getSimpleName().toString()).collect(joining(" , ")), current));
+            for (ExecutableElement method : injectable(ElementFilter.methodsIn(current.getEnclosedElements())))
+                if (!method.getTypeParameters().isEmpty())
+                    valid = error(method, MessageFormat.format("Injectable method can not have type parameter: {0} in {1}", method.getSimpleName(), current));
+        }
+        List<Injectable> injectables = new ArrayList<>(injectables());
+        constructor().ifPresent(injectables::add);
+        for (Injectable injectable : injectables)
+            for (Dependency dependency : injectable.required())
+                if (qualifiers(dependency.element()).size() > 1)
+                    valid = error(dependency.element(), MessageFormat.format("Ambiguous qualifiers: {0} on {1} of {2}",
+                            qualifiers(dependency.element()).stream().map(Object::toString).collect(joining(" , ")), dependency.element(), injectable.declaring()));
+        return valid;
+    }
+
+    boolean generatable() {
+        if (component.getKind() != ElementKind.CLASS || component.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        if (!component.getTypeParameters().isEmpty()) return false;
+        if (component.getNestingKind().isNested() && !component.getModifiers().contains(Modifier.STATIC)) return false;
+        if (component.getNestingKind() == NestingKind.LOCAL || component.getNestingKind() == NestingKind.ANONYMOUS) return false;
+        if (!accessible(component)) return false;
+        Optional<Injectable> constructor = constructor();
+        if (constructor.isEmpty()) return false;
+        List<Injectable> injectables = new ArrayList<>(injectables());
+        injectables.add(constructor.get());
+        return injectables.stream().allMatch(i -> accessible(i.element()) && accessible(i.declaring())
+                && i.required().stream().allMatch(d -> accessible(d.type()) && !lazy(d.element())));
+    }
+
+    Optional<Injectable> constructor() {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(component.getEnclosedElements());
+        List<ExecutableElement> injectConstructors = injectable(constructors);
+        if (!injectConstructors.isEmpty()) return Optional.of(injectable(component, injectConstructors.get(0)));
+        return constructors.stream().filter(c -> c.getParameters().isEmpty()).findFirst().map(c -> injectable(component, c));
+    }
+
+    List<Injectable> fields() {
+        List<Injectable> result = new ArrayList<>();
+        for (TypeElement current : hierarchy)
+            for (VariableElement field : injectable(ElementFilter.fieldsIn(current.getEnclosedElements())))
+                result.add(new Injectable(current, field, List.of(dependency(field))));
+        return result;
+    }
+
+    List<Injectable> methods() {
+        List<Injectable> result = new ArrayList<>();
+        for (int i = 0; i < hierarchy.size(); i++)
+            for (ExecutableElement method : injectable(ElementFilter.methodsIn(hierarchy.get(i).getEnclosedElements())))
+                if (!isOverridden(method, hierarchy.subList(i + 1, hierarchy.size())))
+                    result.add(injectable(hierarchy.get(i), method));
+        return result;
+    }
+
+    List<Injectable> injectables() {
+        List<Injectable> fields = fields();
+        List<Injectable> methods = methods();
+        List<Injectable> result = new ArrayList<>();
+        for (TypeElement current : hierarchy) {
+            fields.stream().filter(f -> f.declaring().equals(current)).forEach(result::add);
+            methods.stream().filter(m -> m.declaring().equals(current)).forEach(result::add);
+        }
+        return result;
+    }
+
+    private boolean isOverridden(final ExecutableElement method, final List<TypeElement> subclasses) {
+        return subclasses.stream().flatMap(s -> ElementFilter.methodsIn(s.getEnclosedElements()).stream())
+                .anyMatch(m -> env.getElementUtils().overrides(m, method, component));
+    }
+
+    private Injectable injectable(final TypeElement declaring, final ExecutableElement executable) {
+        return new Injectable(declaring, executable, executable.getParameters().stream().map(this::dependency).toList());
+    }
+
+    private Dependency dependency(final VariableElement element) {
+        return new Dependency(element.asType(), element, qualifiers(element).stream().findFirst());
+    }
+
+    private static List<AnnotationMirror> qualifiers(final Element element) {
+        List<AnnotationMirror> qualifiers = new ArrayList<>();
+        for (AnnotationMirror annotation : element.getAnnotationMirrors())
+            if (annotation.getAnnotationType().asElement().getAnnotationMirrors().stream()
+                    .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(QUALIFIER)))
+                qualifiers.add(annotation);
+        return qualifiers;
+    }
+
+    private static boolean lazy(final Element element) {
+        return element.getAnnotationMirrors().stream()
+                .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(LAZY));
+    }
+
+    private static <E extends Element> List<E> injectable(final List<E> elements) {
+        return elements.stream().filter(e -> e.getAnnotationMirrors().stream()
+                .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(INJECT))).toList();
+    }
+
+    private boolean accessible(final TypeMirror type) {
+        if (type instanceof ArrayType array) return accessible(array.getComponentType());
+        if (type instanceof DeclaredType declared)
+            return accessible(declared.asElement()) && declared.getTypeArguments().stream().allMatch(this::accessible);
+        return type.getKind().isPrimitive();
+    }
+
+    private boolean accessible(final Element element) {
+        for (Element current = element; current instanceof TypeElement || current instanceof ExecutableElement || current instanceof VariableElement; current = current.getEnclosingElement()) {
+            Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !env.getElementUtils().getPackageOf(current).getQualifiedName().contentEquals(packageName()))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean error(final Element element, final String message) {
+        env.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    private static List<TypeElement> hierarchy(final TypeElement component) {
+        List<TypeElement> result = new ArrayList<>();
+        for (TypeElement current = component;
+             current != null && !current.getQualifiedName().contentEquals("java.lang.Object");
+             current = current.getSuperclass() instanceof DeclaredType superclass ? (TypeElement) superclass.asElement() : null)
+            result.add(0, current);
+        return result;
+    }
+}
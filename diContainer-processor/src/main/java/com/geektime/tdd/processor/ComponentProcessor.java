@@ -0,0 +1,71 @@
+package com.geektime.tdd.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+@SupportedAnnotationTypes({"jakarta.inject.Inject", "jakarta.inject.Singleton"})
+public class ComponentProcessor extends AbstractProcessor {
+    static final String INDEX = "META-INF/services/com.geektime.tdd.ComponentFactory";
+
+    private final Set<String> factories = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment round) {
+        if (round.processingOver()) {
+            if (!factories.isEmpty()) writeIndex();
+            return false;
+        }
+        Set<TypeElement> components = new LinkedHashSet<>();
+        for (Element element : round.getElementsAnnotatedWithAny(annotations.toArray(TypeElement[]::new))) {
+            if (element instanceof TypeElement type) components.add(type);
+            else if (element.getEnclosingElement() instanceof TypeElement type) components.add(type);
+        }
+        for (TypeElement component : components) {
+            ComponentModel model = new ComponentModel(processingEnv, component);
+            if (model.validate() && model.generatable()) generate(model);
+        }
+        return false;
+    }
+
+    private void generate(final ComponentModel model) {
+        try {
+            JavaFileObject source = processingEnv.getFiler().createSourceFile(model.factoryName(), model.component());
+            try (Writer writer = source.openWriter()) {
+                writer.write(new FactoryWriter(model).write());
+            }
+            factories.add(model.factoryName());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can not generate factory: " + e.getMessage(), model.component());
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = index.openWriter()) {
+                for (String factory : factories) writer.write(factory + "\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
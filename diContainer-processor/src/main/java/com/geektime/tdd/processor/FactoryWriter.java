@@ -0,0 +1,115 @@
+package com.geektime.tdd.processor;
+
+import com.geektime.tdd.processor.ComponentModel.Dependency;
+import com.geektime.tdd.processor.ComponentModel.Injectable;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.joining;
+
+class FactoryWriter {
+    private final ComponentModel model;
+    private final Injectable constructor;
+    private final List<Injectable> members;
+    private final List<Dependency> required = new ArrayList<>();
+
+    FactoryWriter(final ComponentModel model) {
+        this.model = model;
+        this.constructor = model.constructor().orElseThrow();
+        this.members = model.injectables();
+        required.addAll(constructor.required());
+        members.forEach(m -> required.addAll(m.required()));
+    }
+
+    String write() {
+        String component = erasure(model.component().asType());
+        String simpleName = model.factoryName().substring(model.factoryName().lastIndexOf('.') + 1);
+        StringBuilder source = new StringBuilder();
+        if (!model.packageName().isEmpty()) source.append("package ").append(model.packageName()).append(";\n\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName).append(" implements com.geektime.tdd.ComponentFactory<").append(component).append("> {\n")
+                .append("    private static final com.geektime.tdd.ComponentRef<?>[] REQUIRED;\n")
+                .append("    private static final java.util.List<com.geektime.tdd.ComponentRef<?>> DEPENDENCIES;\n\n")
+                .append("    static {\n");
+        String refs = "new com.geektime.tdd.ComponentRef<?>[]{" + required.stream().map(d -> "\n                    " + ref(d)).collect(joining(",")) + "\n            };\n";
+        if (required.stream().anyMatch(d -> d.qualifier().isPresent()))
+            source.append("        try {\n")
+                    .append("            REQUIRED = ").append(refs)
+                    .append("        } catch (ReflectiveOperationException e) {\n")
+                    .append("            throw new ExceptionInInitializerError(e);\n")
+                    .append("        }\n");
+        else source.append("        REQUIRED = ").append(refs);
+        source.append("        DEPENDENCIES = java.util.List.of(REQUIRED);\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public Class<").append(component).append("> type() {\n")
+                .append("        return ").append(component).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<com.geektime.tdd.ComponentRef<?>> dependencies() {\n")
+                .append("        return DEPENDENCIES;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(component).append(" create(com.geektime.tdd.Context context) {\n")
+                .append("        ").append(component).append(" instance = new ").append(component).append("(").append(arguments(constructor)).append(");\n");
+        for (Injectable member : members) if (!member.isStatic()) source.append("        ").append(inject(member, "((" + erasure(member.declaring().asType()) + ") instance)")).append(";\n");
+        source.append("        return instance;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void statics(com.geektime.tdd.Context context) {\n");
+        for (Injectable member : members) if (member.isStatic()) source.append("        ").append(inject(member, erasure(member.declaring().asType()))).append(";\n");
+        source.append("    }\n\n")
+                .append("    private static Object get(com.geektime.tdd.Context context, int index) {\n")
+                .append("        return context.require(REQUIRED[index]);\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    private String inject(final Injectable member, final String target) {
+        if (member.element() instanceof VariableElement field)
+            return target + "." + field.getSimpleName() + " = " + argument(member.required().get(0));
+        return target + "." + member.element().getSimpleName() + "(" + arguments(member) + ")";
+    }
+
+    private String arguments(final Injectable injectable) {
+        return injectable.required().stream().map(this::argument).collect(joining(", "));
+    }
+
+    private String argument(final Dependency dependency) {
+        return "(" + erasure(dependency.type()) + ") get(context, " + required.indexOf(dependency) + ")";
+    }
+
+    private String ref(final Dependency dependency) {
+        String qualifier = dependency.qualifier().map(q -> qualifier(dependency, q)).orElse("null");
+        if (dependency.type() instanceof DeclaredType declared && !declared.getTypeArguments().isEmpty()) {
+            List<? extends TypeMirror> arguments = declared.getTypeArguments();
+            String element = erasure(arguments.get(arguments.size() - 1)) + ".class, ";
+            String key = arguments.size() > 1 ? erasure(arguments.get(0)) + ".class, " : "";
+            return "com.geektime.tdd.ComponentRef.of(" + erasure(declared) + ".class, " + key + element + qualifier + ")";
+        }
+        return "com.geektime.tdd.ComponentRef.of(" + erasure(dependency.type()) + ".class, " + qualifier + ")";
+    }
+
+    private String qualifier(final Dependency dependency, final AnnotationMirror qualifier) {
+        String annotation = ".getAnnotation(" + erasure(qualifier.getAnnotationType()) + ".class)";
+        Element enclosing = dependency.element().getEnclosingElement();
+        if (dependency.element().getKind() == ElementKind.FIELD)
+            return erasure(enclosing.asType()) + ".class.getDeclaredField(\"" + dependency.element().getSimpleName() + "\")" + annotation;
+        ExecutableElement executable = (ExecutableElement) enclosing;
+        String declaring = erasure(executable.getEnclosingElement().asType()) + ".class";
+        String parameterTypes = executable.getParameters().stream().map(p -> erasure(p.asType()) + ".class").collect(joining(", "));
+        String lookup = executable.getKind() == ElementKind.CONSTRUCTOR
+                ? declaring + ".getDeclaredConstructor(" + parameterTypes + ")"
+                : declaring + ".getDeclaredMethod(\"" + executable.getSimpleName() + "\"" + (parameterTypes.isEmpty() ? "" : ", " + parameterTypes) + ")";
+        return lookup + ".getParameters()[" + executable.getParameters().indexOf(dependency.element()) + "]" + annotation;
+    }
+
+    private String erasure(final TypeMirror type) {
+        return model.erasure(type).toString();
+    }
+}
@@ -0,0 +1,251 @@
+package com.geektime.tdd.processor;
+
+import com.geektime.tdd.ComponentFactory;
+import com.geektime.tdd.ComponentRef;
+import com.geektime.tdd.Context;
+import com.geektime.tdd.ContextConfig;
+import jakarta.inject.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLClassLoader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentProcessorTest {
+    @TempDir
+    Path output;
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    @Test
+    void should_generate_factory_and_index_for_component() throws Exception {
+        assertTrue(compile(Map.of("sample.Dependency", """
+                        package sample;
+                        public interface Dependency {
+                        }
+                        """,
+                "sample.Base", """
+                        package sample;
+                        import jakarta.inject.Inject;
+                        public abstract class Base {
+                            @Inject
+                            Dependency baseField;
+                            int installed;
+                            @Inject
+                            void install() {
+                                installed++;
+                            }
+                        }
+                        """,
+                "sample.Component", """
+                        package sample;
+                        import jakarta.inject.*;
+                        import java.util.List;
+                        import java.util.function.Supplier;
+                        public class Component extends Base implements Supplier<List<Object>> {
+                            final Dependency constructor;
+                            @Inject @Named("named")
+                            Dependency named;
+                            Provider<Dependency> provider;
+                            @Inject
+                            public Component(Dependency constructor) {
+                                this.constructor = constructor;
+                            }
+                            @Inject
+                            void setProvider(Provider<Dependency> provider) {
+                                this.provider = provider;
+                            }
+                            @Override
+                            void install() {
+                                installed += 10;
+                            }
+                            public List<Object> get() {
+                                return List.of(constructor, baseField, named, provider.get(), installed);
+                            }
+                        }
+                        """)));
+
+        assertTrue(Files.exists(output.resolve("sample/Component_Factory.class")));
+        assertEquals(List.of("sample.Component_Factory"), Files.readAllLines(output.resolve(ComponentProcessor.INDEX)));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> dependencyType = loader.loadClass("sample.Dependency");
+            Class<Object> componentType = (Class<Object>) loader.loadClass("sample.Component");
+            assertTrue(StreamSupport.stream(ServiceLoader.load(ComponentFactory.class, loader).spliterator(), false)
+                    .anyMatch(f -> f.type() == componentType));
+
+            Object dependency = newProxy(loader, dependencyType);
+            Object named = newProxy(loader, dependencyType);
+            ContextConfig config = new ContextConfig();
+            config.factories(loader);
+            config.instance((Class<Object>) dependencyType, dependency);
+            config.instance((Class<Object>) dependencyType, named, componentType.getDeclaredField("named").getAnnotation(Named.class));
+            config.component(componentType, componentType);
+            Context context = config.getContext();
+
+            Supplier<List<Object>> component = (Supplier<List<Object>>) context.get(ComponentRef.of(componentType)).get();
+            assertEquals(List.of(dependency, dependency, named, dependency, 0), component.get());
+        }
+    }
+
+    @Test
+    void should_generate_factory_for_component_without_qualified_dependency() throws Exception {
+        assertTrue(compile(Map.of("sample.Plain", """
+                package sample;
+                import jakarta.inject.*;
+                @Singleton
+                public class Plain implements Provider<Runnable> {
+                    final Runnable runnable;
+                    @Inject
+                    public Plain(Runnable runnable) {
+                        this.runnable = runnable;
+                    }
+                    public Runnable get() {
+                        return runnable;
+                    }
+                }
+                """)), diagnostics.getDiagnostics().toString());
+        assertTrue(Files.exists(output.resolve("sample/Plain_Factory.class")));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<Object> componentType = (Class<Object>) loader.loadClass("sample.Plain");
+            Runnable runnable = () -> {
+            };
+            ContextConfig config = new ContextConfig();
+            config.factories(loader);
+            config.instance(Runnable.class, runnable);
+            config.component(componentType, componentType);
+
+            assertSame(runnable, ((jakarta.inject.Provider<?>) config.getContext().get(ComponentRef.of(componentType)).get()).get());
+        }
+    }
+
+    @Test
+    void should_generate_factory_for_component_with_map_dependency() throws Exception {
+        assertTrue(compile(Map.of("sample.Registry", """
+                package sample;
+                import jakarta.inject.*;
+                import java.util.Map;
+                public class Registry implements Provider<Map<String, Runnable>> {
+                    final Map<String, Runnable> handlers;
+                    @Inject
+                    public Registry(Map<String, Runnable> handlers) {
+                        this.handlers = handlers;
+                    }
+                    public Map<String, Runnable> get() {
+                        return handlers;
+                    }
+                }
+                """, "sample.Handler", """
+                package sample;
+                public class Handler implements Runnable {
+                    public void run() {
+                    }
+                }
+                """)), diagnostics.getDiagnostics().toString());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<Object> componentType = (Class<Object>) loader.loadClass("sample.Registry");
+            Class<Runnable> handlerType = (Class<Runnable>) loader.loadClass("sample.Handler");
+            ContextConfig config = new ContextConfig();
+            config.factories(loader);
+            config.entry(Runnable.class, "handler", handlerType);
+            config.component(componentType, componentType);
+
+            Map<?, ?> handlers = (Map<?, ?>) ((jakarta.inject.Provider<?>) config.getContext().get(ComponentRef.of(componentType)).get()).get();
+            assertEquals(Set.of("handler"), handlers.keySet());
+            assertInstanceOf(handlerType, handlers.get("handler"));
+        }
+    }
+
+    @Test
+    void should_report_final_inject_field_as_compile_error() throws IOException {
+        assertFalse(compile(Map.of("sample.FinalField", """
+                package sample;
+                import jakarta.inject.Inject;
+                public class FinalField {
+                    @Inject
+                    final Object dependency = null;
+                }
+                """)));
+        assertTrue(diagnostics.getDiagnostics().stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR
+                && d.getMessage(Locale.ENGLISH).equals("Injectable field can not be final: dependency in sample.FinalField")));
+    }
+
+    @Test
+    void should_report_ambiguous_inject_constructors_as_compile_error() throws IOException {
+        assertFalse(compile(Map.of("sample.MultiConstructors", """
+                package sample;
+                import jakarta.inject.Inject;
+                public class MultiConstructors {
+                    @Inject
+                    public MultiConstructors(String name) {
+                    }
+                    @Inject
+                    public MultiConstructors(Integer value) {
+                    }
+                }
+                """)));
+        assertTrue(diagnostics.getDiagnostics().stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR
+                && d.getMessage(Locale.ENGLISH).equals("Ambiguous injectable constructors: sample.MultiConstructors")));
+    }
+
+    @Test
+    void should_not_generate_factory_if_inject_member_not_accessible() throws IOException {
+        assertTrue(compile(Map.of("sample.PrivateField", """
+                package sample;
+                import jakarta.inject.Inject;
+                public class PrivateField {
+                    @Inject
+                    private Object dependency;
+                }
+                """)));
+        assertFalse(Files.exists(output.resolve("sample/PrivateField_Factory.class")));
+        assertFalse(Files.exists(output.resolve(ComponentProcessor.INDEX)));
+    }
+
+    private static Object newProxy(ClassLoader loader, Class<?> type) {
+        return java.lang.reflect.Proxy.newProxyInstance(loader, new Class[]{type}, (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        });
+    }
+
+    private boolean compile(Map<String, String> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, Locale.ENGLISH, null)) {
+            files.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(output));
+            files.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, List.of(output));
+            List<JavaFileObject> units = sources.entrySet().stream().<JavaFileObject>map(e -> new Source(e.getKey(), e.getValue())).toList();
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                    List.of("-classpath", System.getProperty("java.class.path")), null, units);
+            task.setProcessors(List.of(new ComponentProcessor()));
+            return task.call();
+        }
+    }
+
+    static class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String name, String code) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.geektime.tdd;
+
+public record CacheMetrics(long capacity, long weight, int size, long hits, long misses, long evictions) {
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,19 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface Cached {
+    long weight() default 1;
+
+    long ttlMillis() default 0;
+
+    boolean soft() default false;
+}
@@ -1,7 +1,78 @@
 package com.geektime.tdd;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public record Component(Class<?> type, Annotation qualifier) {
+    private static final ConcurrentMap<Object, Canonical> QUALIFIERS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Annotation> COLLECTED = new ReferenceQueue<>();
 
+    public Component {
+        if (qualifier != null) qualifier = canonical(qualifier);
+    }
+
+    private static Annotation canonical(final Annotation qualifier) {
+        for (Reference<?> collected; (collected = COLLECTED.poll()) != null; ) QUALIFIERS.remove(collected, collected);
+        Canonical existing = QUALIFIERS.get(new Probe(qualifier));
+        Annotation canonical = existing == null ? null : existing.get();
+        if (canonical != null) return canonical;
+        Canonical created = new Canonical(qualifier);
+        while (true) {
+            Canonical previous = QUALIFIERS.putIfAbsent(created, created);
+            if (previous == null) return qualifier;
+            if ((canonical = previous.get()) != null) return canonical;
+            QUALIFIERS.remove(previous, previous);
+        }
+    }
+
+    private static final class Canonical extends WeakReference<Annotation> {
+        private final int hash;
+
+        Canonical(final Annotation qualifier) {
+            super(qualifier, COLLECTED);
+            this.hash = qualifier.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            Annotation qualifier = get();
+            return qualifier != null && o instanceof Canonical canonical && same(qualifier, canonical.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private record Probe(Annotation qualifier) {
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Canonical canonical && same(qualifier, canonical.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return qualifier.hashCode();
+        }
+    }
+
+    private static boolean same(final Annotation qualifier, final Annotation canonical) {
+        return qualifier == canonical || canonical != null && qualifier.equals(canonical);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return this == o || o instanceof Component component && type == component.type && qualifier == component.qualifier;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(type) + System.identityHashCode(qualifier);
+    }
 }
@@ -0,0 +1,155 @@
+package com.geektime.tdd;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class ComponentCache {
+    static final long DEFAULT_CAPACITY = 64;
+
+    private final Map<CachedProvider<?>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long capacity;
+    private long weight;
+
+    ComponentCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    private record Entry(Object strong, SoftReference<Object> soft, long weight, long expiresAt) {
+        Object value() {
+            return soft == null ? strong : soft.get();
+        }
+
+        boolean expired(long now) {
+            return expiresAt != 0 && now - expiresAt >= 0;
+        }
+    }
+
+    ContextConfig.ScopeProvider scope() {
+        return new ContextConfig.ScopeProvider() {
+            @Override
+            public ComponentProvider<?> create(final ComponentProvider<?> provider) {
+                return new CachedProvider<>(provider, 1, 0, false);
+            }
+
+            @Override
+            public ComponentProvider<?> create(final Annotation scope, final ComponentProvider<?> provider) {
+                Cached cached = (Cached) scope;
+                return new CachedProvider<>(provider, cached.weight(), TimeUnit.MILLISECONDS.toNanos(cached.ttlMillis()), cached.soft());
+            }
+        };
+    }
+
+    synchronized void capacity(long capacity) {
+        this.capacity = capacity;
+        evict();
+    }
+
+    synchronized CacheMetrics metrics() {
+        return new CacheMetrics(capacity, weight, entries.size(), hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private Object lookup(CachedProvider<?> key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) return null;
+            Object value = entry.value();
+            if (value != null && !entry.expired(System.nanoTime())) {
+                hits.increment();
+                return value;
+            }
+            remove(key, entry);
+            return null;
+        }
+    }
+
+    private synchronized void store(CachedProvider<?> key, Object value) {
+        long expiresAt = key.ttlNanos == 0 ? 0 : (System.nanoTime() + key.ttlNanos) | 1;
+        Entry entry = new Entry(key.soft ? null : value, key.soft ? new SoftReference<>(value) : null, key.weight, expiresAt);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) weight -= previous.weight();
+        weight += entry.weight();
+        evict();
+    }
+
+    private synchronized Object release(CachedProvider<?> key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) return null;
+        weight -= entry.weight();
+        return entry.value();
+    }
+
+    private void remove(CachedProvider<?> key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight();
+        evictions.increment();
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > capacity && entries.size() > 1) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            weight -= entry.weight();
+            evictions.increment();
+        }
+    }
+
+    class CachedProvider<T> implements ComponentProvider<T> {
+        private final ComponentProvider<T> provider;
+        private final long weight;
+        private final long ttlNanos;
+        private final boolean soft;
+
+        CachedProvider(ComponentProvider<T> provider, long weight, long ttlNanos, boolean soft) {
+            this.provider = provider;
+            this.weight = weight;
+            this.ttlNanos = ttlNanos;
+            this.soft = soft;
+        }
+
+        @Override
+        public T get(final Context context) {
+            Object value = lookup(this);
+            if (value != null) return (T) value;
+            synchronized (this) {
+                value = lookup(this);
+                if (value != null) return (T) value;
+                misses.increment();
+                T instance = provider.get(context);
+                store(this, instance);
+                return instance;
+            }
+        }
+
+        @Override
+        public void close() {
+            Object value = release(this);
+            if (value != null) provider.destroy((T) value);
+        }
+
+        @Override
+        public ComponentProvider<T> fork() {
+            return new CachedProvider<>(provider.fork(), weight, ttlNanos, soft);
+        }
+
+        @Override
+        public List<ComponentRef<?>> getDependencies() {
+            return provider.getDependencies();
+        }
+
+        @Override
+        public void link(final ResolutionPlan plan) {
+            provider.link(plan);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.geektime.tdd;
+
+import java.util.List;
+
+public interface ComponentFactory<T> {
+    Class<T> type();
+
+    List<ComponentRef<?>> dependencies();
+
+    T create(Context context);
+
+    default void statics(Context context) {
+
+    }
+}
@@ -0,0 +1,104 @@
+package com.geektime.tdd;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ComponentMetrics implements Instrumentation {
+    private final Map<Component, Metrics> metrics = new ConcurrentHashMap<>();
+    private final Histogram contextCreation = new Histogram();
+
+    @Override
+    public void instantiated(final Component component, final long constructionNanos, final long injectionNanos) {
+        Metrics metrics = of(component);
+        metrics.construction.record(constructionNanos);
+        metrics.injection.record(injectionNanos);
+    }
+
+    @Override
+    public void singletonInitialized(final Component component, final long nanos) {
+        of(component).singletonInitialization.record(nanos);
+    }
+
+    @Override
+    public void contextCreated(final int components, final long nanos) {
+        contextCreation.record(nanos);
+    }
+
+    public Metrics of(Component component) {
+        return metrics.computeIfAbsent(component, c -> new Metrics());
+    }
+
+    public Map<Component, Metrics> components() {
+        return Map.copyOf(metrics);
+    }
+
+    long startupNanos(Component component) {
+        Metrics metrics = this.metrics.get(component);
+        if (metrics == null) return 0;
+        if (metrics.singletonInitialization.count() > 0) return metrics.singletonInitialization.totalNanos() / metrics.singletonInitialization.count();
+        if (metrics.instances() == 0) return 0;
+        return (metrics.construction.totalNanos() + metrics.injection.totalNanos()) / metrics.instances();
+    }
+
+    public Histogram contextCreation() {
+        return contextCreation;
+    }
+
+    public static class Metrics {
+        private final Histogram construction = new Histogram();
+        private final Histogram injection = new Histogram();
+        private final Histogram singletonInitialization = new Histogram();
+
+        public long instances() {
+            return construction.count();
+        }
+
+        public Histogram construction() {
+            return construction;
+        }
+
+        public Histogram injection() {
+            return injection;
+        }
+
+        public Histogram singletonInitialization() {
+            return singletonInitialization;
+        }
+    }
+
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+
+        void record(long nanos) {
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            total.add(nanos);
+        }
+
+        private static int bucket(long nanos) {
+            return Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long totalNanos() {
+            return total.sum();
+        }
+
+        public long percentile(double percentile) {
+            long rank = (long) Math.ceil(count() * percentile);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) return i == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+            return 0;
+        }
+    }
+}
@@ -14,4 +14,24 @@ interface ComponentProvider<T> {
     default List<ComponentRef<?>> getDependencies() {
         return of();
     }
+
+    default void link(ResolutionPlan plan) {
+
+    }
+
+    default void destroy(T instance) {
+
+    }
+
+    default void close() {
+
+    }
+
+    default ComponentProvider<T> fork() {
+        return this;
+    }
+
+    default ComponentProvider<T> instrument(Component component, Instrumentation instrumentation) {
+        return this;
+    }
 }
@@ -3,6 +3,7 @@ package com.geektime.tdd;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Map;
 import java.util.Objects;
 
 public class ComponentRef<ComponentType> {
@@ -22,10 +23,28 @@ public class ComponentRef<ComponentType> {
         return new ComponentRef(type, qualifier);
     }
 
+    public static ComponentRef of(Class<?> container, Class<?> component, Annotation qualifier) {
+        ComponentRef ref = new ComponentRef(component, qualifier);
+        ref.container = container;
+        ref.keyType = container == Map.class ? String.class : null;
+        return ref;
+    }
+
+    public static ComponentRef of(Class<?> container, Class<?> key, Class<?> component, Annotation qualifier) {
+        ComponentRef ref = new ComponentRef(component, qualifier);
+        ref.container = container;
+        ref.keyType = key;
+        return ref;
+    }
+
     private Type container;
 
+    private Type keyType;
+
     private Component component;
 
+    private Component key;
+
     ComponentRef(Type type, Annotation qualifier) {
         init(type, qualifier);
     }
@@ -41,7 +60,9 @@ public class ComponentRef<ComponentType> {
     private void init(Type type, Annotation qualifier) {
         if (type instanceof ParameterizedType container) {
             this.container = container.getRawType();
-            this.component = new Component((Class<ComponentType>) container.getActualTypeArguments()[0], qualifier);
+            Type[] arguments = container.getActualTypeArguments();
+            if (arguments.length > 1) this.keyType = arguments[0];
+            this.component = new Component((Class<ComponentType>) arguments[arguments.length - 1], qualifier);
         } else {
             this.component = new Component((Class<ComponentType>) type, qualifier);
         }
@@ -59,6 +80,16 @@ public class ComponentRef<ComponentType> {
         return component;
     }
 
+    public boolean isCollection() {
+        return container != null && Multibinding.CONTAINERS.contains(container);
+    }
+
+    public Component key() {
+        Component key = this.key;
+        if (key == null) this.key = key = isCollection() ? Multibinding.collection((Class<?>) container, keyType, component) : component;
+        return key;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -69,6 +100,6 @@ public class ComponentRef<ComponentType> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(container, component);
+        return 31 * Objects.hashCode(container) + Objects.hashCode(component);
     }
 }
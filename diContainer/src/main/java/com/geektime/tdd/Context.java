@@ -1,8 +1,28 @@
 package com.geektime.tdd;
 
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
-public interface Context {
+public interface Context extends AutoCloseable {
     <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref);
 
+    default <ComponentType> ComponentType getOrNull(ComponentRef<ComponentType> ref) {
+        return get(ref).orElse(null);
+    }
+
+    default <ComponentType> ComponentType require(ComponentRef<ComponentType> ref) {
+        ComponentType component = getOrNull(ref);
+        if (component == null) throw new NoSuchElementException(ref.component().toString());
+        return component;
+    }
+
+    default Object[] resolveAll(ComponentRef<?>[] refs) {
+        Object[] components = new Object[refs.length];
+        for (int i = 0; i < refs.length; i++) components[i] = require(refs[i]);
+        return components;
+    }
+
+    @Override
+    default void close() {
+    }
 }
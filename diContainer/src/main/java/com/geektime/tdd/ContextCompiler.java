@@ -0,0 +1,291 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Singleton;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.*;
+import java.net.URI;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.lang.invoke.MethodType.methodType;
+
+final class ContextCompiler {
+    static final int MAX_COMPONENTS = 4096;
+    private static final int CASES_PER_METHOD = 256;
+    private static final String NAME = "CompiledContext";
+    private static final int CACHED_SHAPES = 32;
+    private static final System.Logger LOGGER = System.getLogger(ContextCompiler.class.getName());
+    private static final Map<String, Optional<MethodHandle>> COMPILED = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Optional<MethodHandle>> eldest) {
+            return size() > CACHED_SHAPES;
+        }
+    });
+
+    private final ResolutionPlan plan;
+    private final ComponentProvider<?>[] providers;
+    private final StringBuilder source = new StringBuilder();
+    private final List<Integer> singletons = new ArrayList<>();
+    private final Set<Class<?>> referenced = new LinkedHashSet<>(List.of(ContextCompiler.class));
+
+    private ContextCompiler(ResolutionPlan plan) {
+        this.plan = plan;
+        this.providers = plan.providers();
+    }
+
+    static Optional<Context> compile(ContextConfig.PlanContext fallback) {
+        if (fallback.plan.providers().length > MAX_COMPONENTS) return Optional.empty();
+        ContextCompiler compiler = new ContextCompiler(fallback.plan);
+        return constructor(compiler.source(), compiler.referenced).map(constructor -> {
+            try {
+                return (Context) constructor.invoke(fallback.plan.providers(), fallback.plan.slots(), fallback);
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static Optional<MethodHandle> constructor(String source, Collection<Class<?>> referenced) {
+        Optional<MethodHandle> constructor = COMPILED.get(source);
+        if (constructor != null) return constructor;
+        constructor = define(source, referenced).map(lookup -> {
+            try {
+                return lookup.findConstructor(lookup.lookupClass(), methodType(void.class, ComponentProvider[].class, Map.class, Context.class));
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        COMPILED.put(source, constructor);
+        return constructor;
+    }
+
+    private String source() {
+        source.append("package com.geektime.tdd;\n\n")
+                .append("@SuppressWarnings(\"unchecked\")\n")
+                .append("final class ").append(NAME).append(" implements Context, java.util.function.IntFunction<Object> {\n")
+                .append("    private final ComponentProvider<?>[] providers;\n")
+                .append("    private final java.util.Map<Component, Integer> slots;\n")
+                .append("    private final Context fallback;\n")
+                .append("    private volatile boolean closed;\n");
+        for (int i = 0; i < providers.length; i++)
+            if (providers[i].getClass() == SingletonProvider.class) source.append("    private volatile Object s").append(i).append(";\n");
+        source.append("\n    ").append(NAME).append("(ComponentProvider<?>[] providers, java.util.Map<Component, Integer> slots, Context fallback) {\n")
+                .append("        this.providers = providers;\n        this.slots = slots;\n        this.fallback = fallback;\n    }\n\n")
+                .append("    @Override\n")
+                .append("    public <T> java.util.Optional<T> get(ComponentRef<T> ref) {\n")
+                .append("        if (closed) throw Lifecycle.LifecycleException.closed();\n")
+                .append("        if (ref.isContainer()) return fallback.get(ref);\n")
+                .append("        Integer slot = slots.get(ref.component());\n")
+                .append("        if (slot == null) return fallback.get(ref);\n")
+                .append("        return java.util.Optional.ofNullable((T) component(slot));\n    }\n\n")
+                .append("    @Override\n")
+                .append("    public <T> T getOrNull(ComponentRef<T> ref) {\n")
+                .append("        if (closed) throw Lifecycle.LifecycleException.closed();\n")
+                .append("        if (ref.isContainer()) return fallback.getOrNull(ref);\n")
+                .append("        Integer slot = slots.get(ref.component());\n")
+                .append("        if (slot == null) return fallback.getOrNull(ref);\n")
+                .append("        return (T) component(slot);\n    }\n\n")
+                .append("    @Override\n")
+                .append("    public void close() {\n        closed = true;\n        fallback.close();\n");
+        for (int i = 0; i < providers.length; i++)
+            if (providers[i].getClass() == SingletonProvider.class) source.append("        s").append(i).append(" = null;\n");
+        source.append("    }\n\n");
+        component();
+        for (int i = 0; i < providers.length; i++) component(i);
+        source.append("    @Override\n")
+                .append("    public Object apply(int slot) {\n")
+                .append("        switch (slot) {\n");
+        for (int slot : singletons) source.append("            case ").append(slot).append(": return n").append(slot).append("();\n");
+        source.append("            default: throw new IndexOutOfBoundsException(slot);\n        }\n    }\n");
+        return source.append("}\n").toString();
+    }
+
+    private void component() {
+        source.append("    private Object component(int slot) {\n");
+        for (int from = 0; from < providers.length; from += CASES_PER_METHOD)
+            source.append("        if (slot < ").append(from + CASES_PER_METHOD).append(") return component").append(from / CASES_PER_METHOD).append("(slot);\n");
+        source.append("        throw new IllegalStateException();\n    }\n\n");
+        for (int from = 0; from < providers.length; from += CASES_PER_METHOD) {
+            source.append("    private Object component").append(from / CASES_PER_METHOD).append("(int slot) {\n        switch (slot) {\n");
+            for (int i = from; i < Math.min(from + CASES_PER_METHOD, providers.length); i++)
+                source.append("            case ").append(i).append(": return c").append(i).append("();\n");
+            source.append("            default: throw new IllegalStateException();\n        }\n    }\n\n");
+        }
+    }
+
+    private void component(int slot) {
+        ComponentProvider<?> provider = providers[slot];
+        source.append("    private Object c").append(slot).append("() {\n");
+        if (provider.getClass() == SingletonProvider.class) {
+            boolean direct = ((SingletonProvider<?>) provider).provider() instanceof InjectionProvider<?> injection && direct(injection);
+            source.append("        Object instance = s").append(slot).append(";\n")
+                    .append("        if (instance == null) s").append(slot).append(" = instance = ")
+                    .append(direct ? "((SingletonProvider<Object>) providers[" + slot + "]).initialize(this, " + slot + ")" : "providers[" + slot + "].get(this)").append(";\n")
+                    .append("        return instance;\n    }\n\n");
+            if (!direct) return;
+            singletons.add(slot);
+            source.append("    private Object n").append(slot).append("() {\n");
+            construct((InjectionProvider<?>) ((SingletonProvider<?>) provider).provider());
+        } else if (provider instanceof InjectionProvider<?> injection && direct(injection)) construct(injection);
+        else source.append("        return providers[").append(slot).append("].get(this);\n");
+        source.append("    }\n\n");
+    }
+
+    private void construct(InjectionProvider<?> provider) {
+        Constructor<?> constructor = (Constructor<?>) provider.constructor().element();
+        String type = name(constructor.getDeclaringClass());
+        source.append("        ").append(type).append(" instance = new ").append(type).append("(")
+                .append(arguments(provider.constructor())).append(");\n");
+        for (InjectionProvider.Injectable<?> member : provider.members()) {
+            String declaring = name(((Member) member.element()).getDeclaringClass());
+            if (member.element() instanceof Field field)
+                source.append("        ((").append(declaring).append(") instance).").append(field.getName())
+                        .append(" = ").append(arguments(member)).append(";\n");
+            else source.append("        ((").append(declaring).append(") instance).").append(((Method) member.element()).getName())
+                    .append("(").append(arguments(member)).append(");\n");
+        }
+        source.append("        return instance;\n");
+    }
+
+    private String arguments(InjectionProvider.Injectable<?> injectable) {
+        Class<?>[] types = injectable.element() instanceof Field field ? new Class<?>[]{field.getType()} : ((Executable) injectable.element()).getParameterTypes();
+        StringJoiner arguments = new StringJoiner(", ");
+        for (int i = 0; i < types.length; i++)
+            arguments.add("(" + name(types[i]) + ") c" + plan.slots().get(injectable.required()[i].component()) + "()");
+        return arguments.toString();
+    }
+
+    private boolean direct(InjectionProvider<?> provider) {
+        if (provider.getClass() != InjectionProvider.class || provider.lifecycle().hasPostConstruct()) return false;
+        List<InjectionProvider.Injectable<?>> injectables = new ArrayList<>(provider.members());
+        injectables.add(provider.constructor());
+        for (InjectionProvider.Injectable<?> injectable : injectables) {
+            Member member = (Member) injectable.element();
+            if (!accessible(member.getDeclaringClass()) || !accessible(member.getModifiers(), member.getDeclaringClass())) return false;
+            if (member instanceof Executable executable) {
+                if (executable.getExceptionTypes().length > 0) return false;
+                if (!accessible(executable.getParameterTypes())) return false;
+            } else if (!accessible(((Field) member).getType())) return false;
+            for (ComponentRef<?> ref : injectable.required())
+                if (ref.isContainer() || !plan.slots().containsKey(ref.component())) return false;
+        }
+        return true;
+    }
+
+    private static boolean accessible(Class<?>[] types) {
+        for (Class<?> type : types) if (!accessible(type)) return false;
+        return true;
+    }
+
+    private static boolean accessible(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isAnonymousClass() || type.isLocalClass() || type.isHidden() || type.isSynthetic()) return false;
+        if (!visible(type)) return false;
+        for (Class<?> current = type; current != null; current = current.getEnclosingClass())
+            if (!accessible(current.getModifiers(), current)) return false;
+        return true;
+    }
+
+    private static boolean accessible(int modifiers, Class<?> declaring) {
+        if (Modifier.isPublic(modifiers)) return true;
+        return !Modifier.isPrivate(modifiers) && declaring.getPackageName().equals(ContextCompiler.class.getPackageName())
+                && declaring.getClassLoader() == ContextCompiler.class.getClassLoader();
+    }
+
+    private static boolean visible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, ContextCompiler.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private String name(Class<?> type) {
+        referenced.add(type);
+        return type.getCanonicalName();
+    }
+
+    private static Optional<MethodHandles.Lookup> define(String source, Collection<Class<?>> referenced) {
+        return bytecode("com.geektime.tdd." + NAME, source, referenced).flatMap(bytecode -> {
+            try {
+                return Optional.of(MethodHandles.lookup().defineHiddenClass(bytecode, true));
+            } catch (IllegalAccessException | LinkageError e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Failed to define " + NAME + ", falling back to resolution plan", e);
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static Optional<byte[]> bytecode(String name, String source, Collection<Class<?>> referenced) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            LOGGER.log(System.Logger.Level.WARNING, "No system Java compiler available to generate " + name);
+            return Optional.empty();
+        }
+        Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(null, Locale.ENGLISH, null)) {
+            JavaFileManager output = new ForwardingJavaFileManager<>(files) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                    return new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') + kind.extension), kind) {
+                        @Override
+                        public OutputStream openOutputStream() {
+                            return classes.computeIfAbsent(className, c -> new ByteArrayOutputStream());
+                        }
+                    };
+                }
+            };
+            JavaFileObject unit = new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            boolean compiled = compiler.getTask(null, output, diagnostics,
+                    List.of("-classpath", classpath(referenced), "-proc:none", "-g:none"), null, List.of(unit)).call();
+            if (!compiled || classes.size() != 1 || !classes.containsKey(name)) {
+                LOGGER.log(System.Logger.Level.WARNING, () -> "Failed to compile " + name + ":\n" + diagnostics.getDiagnostics().stream()
+                        .map(d -> d.getKind() + " line " + d.getLineNumber() + ": " + d.getMessage(Locale.ENGLISH)).collect(Collectors.joining("\n")));
+                return Optional.empty();
+            }
+            return Optional.of(classes.get(name).toByteArray());
+        } catch (Exception e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to compile " + name, e);
+            return Optional.empty();
+        }
+    }
+
+    private static String classpath(Collection<Class<?>> referenced) {
+        Set<String> paths = new LinkedHashSet<>();
+        Deque<Class<?>> types = new ArrayDeque<>(referenced);
+        Set<Class<?>> visited = new HashSet<>();
+        while (!types.isEmpty()) {
+            Class<?> type = types.pop();
+            if (type.isArray() || type.isPrimitive() || !visited.add(type)) continue;
+            location(type).ifPresent(paths::add);
+            if (type.getSuperclass() != null) types.push(type.getSuperclass());
+            types.addAll(List.of(type.getInterfaces()));
+            if (type.getEnclosingClass() != null) types.push(type.getEnclosingClass());
+        }
+        paths.addAll(List.of(System.getProperty("java.class.path").split(File.pathSeparator)));
+        return String.join(File.pathSeparator, paths);
+    }
+
+    private static Optional<String> location(Class<?> type) {
+        try {
+            CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source == null || source.getLocation() == null) return Optional.empty();
+            return Optional.of(Path.of(source.getLocation().toURI()).toString());
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+}
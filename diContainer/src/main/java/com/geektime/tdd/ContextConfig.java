@@ -9,9 +9,13 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.geektime.tdd.ContextConfig.ContextConfigError.circularDependencies;
 import static com.geektime.tdd.ContextConfig.ContextConfigError.unsatisfiedResolution;
@@ -20,12 +24,51 @@ import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.joining;
 
 public class ContextConfig {
-    private final Map<Component, ComponentProvider<?>> components = new HashMap<>();
+    private Map<Component, ComponentProvider<?>> components = new HashMap<>();
     private final Map<Class<?>, ScopeProvider> scopes = new HashMap<>();
     private final List<Component> staticsComponents = new ArrayList<>();
+    private final Map<Class<?>, ComponentFactory<?>> factories = new HashMap<>();
+    private final Map<Component, Multibinding> multibindings = new HashMap<>();
+    private final Interceptors interceptors = new Interceptors();
+    private final InjectionEngine engine;
+    private final Optional<Instrumentation> instrumentation;
+    private final Optional<ResolutionPlan> parent;
+    private final ComponentCache cache = new ComponentCache(ComponentCache.DEFAULT_CAPACITY);
+    private boolean injected;
 
     public ContextConfig() {
+        this(InjectionEngine.REFLECTION);
+    }
+
+    public ContextConfig(InjectionEngine engine) {
+        this(engine, Optional.empty(), Optional.empty());
+    }
+
+    public ContextConfig(InjectionEngine engine, Instrumentation instrumentation) {
+        this(engine, Optional.of(instrumentation), Optional.empty());
+    }
+
+    public ContextConfig(Context parent) {
+        this(parent, InjectionEngine.REFLECTION);
+    }
+
+    public ContextConfig(Context parent, InjectionEngine engine) {
+        this(engine, Optional.empty(), Optional.of(parentPlan(parent)));
+    }
+
+    public ContextConfig(Context parent, InjectionEngine engine, Instrumentation instrumentation) {
+        this(engine, Optional.of(instrumentation), Optional.of(parentPlan(parent)));
+    }
+
+    private ContextConfig(InjectionEngine engine, Optional<Instrumentation> instrumentation, Optional<ResolutionPlan> parent) {
+        this.engine = engine;
+        this.instrumentation = instrumentation;
+        this.parent = parent;
         scope(Singleton.class, SingletonProvider::new);
+        scope(ThreadScoped.class, ScopedProvider::thread);
+        scope(RequestScoped.class, ScopedProvider::request);
+        scope(PoolScoped.class, PoolProvider.scope());
+        scope(Cached.class, cache.scope());
     }
 
     public <Type> void instance(Class<Type> type, Type instance) {
@@ -47,7 +90,92 @@ public class ContextConfig {
 
     private void bindComponent(Class<?> type, Class<?> implementation, Annotation[] annotations, boolean statics) {
         Bindings bindings = new Bindings(implementation, annotations);
-        bind(type, bindings.qualifiers(), bindings.provider(this::scopeProvider), statics);
+        Component component = new Component(type, bindings.qualifiers().stream().findFirst().orElse(null));
+        bind(type, bindings.qualifiers(), bindings.provider(i -> instrument(component, injectionProvider(i)),
+                (scope, provider) -> instrument(component, scopeProvider(scope, provider))), statics);
+    }
+
+    private ComponentProvider<?> instrument(Component component, ComponentProvider<?> provider) {
+        return instrumentation.<ComponentProvider<?>>map(i -> provider.instrument(component, i)).orElse(provider);
+    }
+
+    private ComponentProvider<?> injectionProvider(Class<?> implementation) {
+        injected = true;
+        if (factories.containsKey(implementation) && !interceptors.intercepts(implementation))
+            return new FactoryProvider<>(factories.get(implementation));
+        return new InjectionProvider<>(implementation, engine, interceptors);
+    }
+
+    public void intercept(Class<? extends Annotation> binding, MethodInterceptor interceptor) {
+        if (injected) throw ContextConfigException.interceptedAfterBinding(binding);
+        interceptors.add(binding, interceptor);
+    }
+
+    public void factories(ClassLoader loader) {
+        factories(ServiceLoader.load(ComponentFactory.class, loader));
+    }
+
+    public void factories(Iterable<? extends ComponentFactory> factories) {
+        for (ComponentFactory<?> factory : factories) this.factories.put(factory.type(), factory);
+    }
+
+    public <Type, Implementation extends Type> void element(Class<Type> type, Class<Implementation> implementation, Annotation... annotations) {
+        contribute(List.of(List.class, Set.class), type, null, implementation, annotations);
+    }
+
+    public <Type, Implementation extends Type> void entry(Class<Type> type, String key, Class<Implementation> implementation, Annotation... annotations) {
+        contribute(List.of(Map.class), type, key, implementation, annotations);
+    }
+
+    private void contribute(List<Class<?>> containers, Class<?> type, String key, Class<?> implementation, Annotation[] annotations) {
+        Bindings bindings = new Bindings(implementation, annotations);
+        List<Annotation> qualifiers = bindings.qualifiers().isEmpty() ? Collections.singletonList(null) : bindings.qualifiers();
+        Component component = new Component(type, qualifiers.get(0));
+        ComponentProvider<?> provider = bindings.provider(i -> instrument(component, injectionProvider(i)),
+                (scope, p) -> instrument(component, scopeProvider(scope, p)));
+        List<Multibinding> contributed = new ArrayList<>(qualifiers.size() * containers.size());
+        for (Annotation qualifier : qualifiers)
+            for (Class<?> container : containers) {
+                Multibinding multibinding = multibindings.get(Multibinding.collection(container, new Component(type, qualifier)));
+                if (multibinding == null) multibinding = new Multibinding(container, new Component(type, qualifier));
+                Component contribution = multibinding.contribution(key);
+                if (components.containsKey(contribution)) throw ContextConfigException.duplicated(contribution);
+                contributed.add(multibinding);
+            }
+        for (Multibinding multibinding : contributed) {
+            multibindings.putIfAbsent(multibinding.collection(), multibinding);
+            if (!components.containsKey(multibinding.collection()))
+                bind(multibinding.collection(), new SingletonProvider<>(multibinding), false);
+            bind(multibinding.contains(key) ? multibinding.contribution(key) : multibinding.add(key), provider, false);
+        }
+    }
+
+    public void bindAll(Collection<Binding> bindings) {
+        Map<Component, ComponentProvider<?>> registered = components;
+        int statics = staticsComponents.size();
+        components = new HashMap<>((int) ((registered.size() + bindings.size()) / 0.75f) + 1);
+        components.putAll(registered);
+        try {
+            for (Binding binding : bindings) {
+                if (binding.implementation() == null)
+                    bindInstance(binding.type(), binding.instance(), binding.annotations(), binding.statics());
+                else bindComponent(binding.type(), binding.implementation(), binding.annotations(), binding.statics());
+            }
+        } catch (RuntimeException | Error e) {
+            components = registered;
+            staticsComponents.subList(statics, staticsComponents.size()).clear();
+            throw e;
+        }
+    }
+
+    public record Binding(Class<?> type, Class<?> implementation, Object instance, Annotation[] annotations, boolean statics) {
+        public static Binding component(Class<?> type, Class<?> implementation, Annotation... annotations) {
+            return new Binding(type, implementation, null, annotations, false);
+        }
+
+        public static Binding instance(Class<?> type, Object instance, Annotation... annotations) {
+            return new Binding(type, null, instance, annotations, false);
+        }
     }
 
     private <Type> void bind(final Class<Type> type, List<Annotation> qualifiers, final ComponentProvider<?> provider, boolean statics) {
@@ -56,6 +184,13 @@ public class ContextConfig {
     }
 
     static class Bindings {
+        private static final ClassValue<List<Annotation>> SCOPES = new ClassValue<>() {
+            @Override
+            protected List<Annotation> computeValue(final Class<?> implementation) {
+                return stream(implementation.getAnnotations()).filter(a -> a.annotationType().isAnnotationPresent(Scope.class)).toList();
+            }
+        };
+
         private Class<?> type;
         private Map<Class<?>, List<Annotation>> group;
 
@@ -66,14 +201,19 @@ public class ContextConfig {
 
 
         private Map<Class<?>, List<Annotation>> parse(Annotation[] annotations) {
-            Map<Class<?>, List<Annotation>> annotationGroup = stream(annotations).collect(Collectors.groupingBy(Bindings::typeOf));
+            if (annotations.length == 0) return Map.of();
+            Map<Class<?>, List<Annotation>> annotationGroup = new HashMap<>(4);
+            for (Annotation annotation : annotations)
+                annotationGroup.computeIfAbsent(typeOf(annotation), t -> new ArrayList<>(1)).add(annotation);
             if (annotationGroup.containsKey(Illegal.class))
                 throw illegalAnnotation(type, annotationGroup.get(Illegal.class));
             return annotationGroup;
         }
 
         private static Class<? extends Annotation> typeOf(final Annotation annotation) {
-            return Stream.of(Qualifier.class, Scope.class).filter(a -> annotation.annotationType().isAnnotationPresent(a)).findFirst().orElse(Illegal.class);
+            if (annotation.annotationType().isAnnotationPresent(Qualifier.class)) return Qualifier.class;
+            if (annotation.annotationType().isAnnotationPresent(Scope.class)) return Scope.class;
+            return Illegal.class;
         }
 
         List<Annotation> qualifiers() {
@@ -81,17 +221,13 @@ public class ContextConfig {
         }
 
         private Optional<Annotation> scope() {
-            List<Annotation> scopes = group.getOrDefault(Scope.class, scopeFrom(type));
+            List<Annotation> scopes = group.containsKey(Scope.class) ? group.get(Scope.class) : SCOPES.get(type);
             if (scopes.size() > 1) throw illegalAnnotation(type, scopes);
             return scopes.stream().findFirst();
         }
 
-        private static <Type> List<Annotation> scopeFrom(final Class<Type> implementation) {
-            return stream(implementation.getAnnotations()).filter(a -> a.annotationType().isAnnotationPresent(Scope.class)).toList();
-        }
-
-        private ComponentProvider<?> provider(BiFunction<Annotation, ComponentProvider<?>, ComponentProvider<?>> scoped) {
-            ComponentProvider<?> injectProvider = new InjectionProvider<>(type);
+        private ComponentProvider<?> provider(Function<Class<?>, ComponentProvider<?>> injection, BiFunction<Annotation, ComponentProvider<?>, ComponentProvider<?>> scoped) {
+            ComponentProvider<?> injectProvider = injection.apply(type);
             return scope().<ComponentProvider<?>>map(s -> scoped.apply(s, injectProvider)).orElse(injectProvider);
         }
     }
@@ -106,13 +242,12 @@ public class ContextConfig {
     private ComponentProvider<?> scopeProvider(Annotation scope, final ComponentProvider<?> injectProvider) {
         if (!scopes.containsKey(scope.annotationType()))
             throw ContextConfigException.unknownScope(scope.annotationType());
-        return scopes.get(scope.annotationType()).create(injectProvider);
+        return scopes.get(scope.annotationType()).create(scope, injectProvider);
     }
 
     private <Type, Implementation extends Type> void bind(Component component, final ComponentProvider<Implementation> provider, boolean statics) {
-        if (components.containsKey(component)) throw ContextConfigException.duplicated(component);
+        if (components.putIfAbsent(component, provider) != null) throw ContextConfigException.duplicated(component);
         if (statics) staticsComponents.add(component);
-        components.put(component, provider);
     }
 
     public <Type> void scope(final Class<Type> scope, final ScopeProvider provider) {
@@ -121,51 +256,206 @@ public class ContextConfig {
 
 
     public Context getContext() {
+        return getContext(Optional.empty());
+    }
 
-        Context context = new Context() {
+    public Context getContext(Executor executor) {
+        return getContext(Optional.of(executor));
+    }
 
-            @Override
-            public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> componentRef) {
-                if (componentRef.isContainer()) {
-                    if (componentRef.getContainer() != Provider.class) return Optional.empty();
-                    return (Optional<ComponentType>) Optional.ofNullable(components.get(componentRef.component()))
-                            .map(p -> (Provider<Object>) () -> p.get(this));
-                }
-                return Optional.ofNullable(components.get(componentRef.component())).map(p -> ((ComponentType) p.get(this)));
+    public Context getCompiledContext() {
+        PlanContext context = (PlanContext) getContext();
+        return ContextCompiler.compile(context).orElse(context);
+    }
 
-            }
-        };
+    public LiveContext getLiveContext() {
+        Map<Component, ComponentProvider<?>> forked = fork(components);
+        LiveContext context = new LiveContext(forked, multibindings, parent.orElse(null), this::derive);
+        injectStaticMembers(context, forked);
+        return context;
+    }
+
+    private ContextConfig derive(Map<Component, Multibinding> multibindings) {
+        ContextConfig config = new ContextConfig(engine, instrumentation, parent);
+        config.scopes.putAll(scopes);
+        config.factories.putAll(factories);
+        config.interceptors.addAll(interceptors);
+        config.staticsComponents.addAll(staticsComponents);
+        multibindings.forEach((collection, multibinding) -> config.multibindings.put(collection, (Multibinding) multibinding.fork()));
+        return config;
+    }
+
+    Map<Component, ComponentProvider<?>> bindings() {
+        return components;
+    }
 
-        components.keySet().forEach(component -> checkDependencies(component, new Stack<>()));
-        injectStaticMembers(context);
+    Map<Component, Multibinding> multibindings() {
+        return multibindings;
+    }
+
+    private Context getContext(Optional<Executor> eager) {
+        long start = System.nanoTime();
+        Map<Component, ComponentProvider<?>> forked = fork(components);
+        Collection<Component> checked = checkDependencies(forked, this::inherited);
+        ResolutionPlan plan = new ResolutionPlan(forked, checked, parent.orElse(null));
+        Context context = new PlanContext(plan, eager);
+        plan.link(context);
+
+        injectStaticMembers(context, forked);
+        eager.ifPresent(executor -> initializeSingletons(context, forked, checked, executor));
+        instrumentation.ifPresent(i -> i.contextCreated(components.size(), System.nanoTime() - start));
         return context;
     }
 
-    private void injectStaticMembers(Context context) {
+    private static Map<Component, ComponentProvider<?>> fork(Map<Component, ComponentProvider<?>> components) {
+        Map<ComponentProvider<?>, ComponentProvider<?>> forks = new IdentityHashMap<>();
+        Map<Component, ComponentProvider<?>> forked = new HashMap<>((int) (components.size() / 0.75f) + 1);
+        for (Map.Entry<Component, ComponentProvider<?>> entry : components.entrySet())
+            forked.put(entry.getKey(), forks.computeIfAbsent(entry.getValue(), ComponentProvider::fork));
+        return forked;
+    }
+
+    public Optional<PoolMetrics> poolMetrics(Component component) {
+        return Optional.ofNullable(components.get(component)).filter(PoolProvider.class::isInstance)
+                .map(p -> ((PoolProvider<?>) p).metrics());
+    }
+
+    public void cacheCapacity(long maximumWeight) {
+        cache.capacity(maximumWeight);
+    }
+
+    public CacheMetrics cacheMetrics() {
+        return cache.metrics();
+    }
+
+    public StartupReport startupReport(ComponentMetrics metrics) {
+        Collection<Component> checked = checkDependencies(components, this::inherited);
+        Map<Component, List<Component>> graph = new HashMap<>(checked.size() * 2);
+        for (Component component : checked)
+            graph.put(component, components.get(component).getDependencies().stream()
+                    .filter(d -> !d.isContainer() || d.isCollection()).map(ComponentRef::key).distinct().toList());
+        return new StartupReport(checked, graph, metrics::startupNanos);
+    }
+
+    private boolean inherited(Component component) {
+        return parent.map(p -> p.contains(component)).orElse(false);
+    }
+
+    private static ResolutionPlan parentPlan(Context parent) {
+        if (parent instanceof PlanContext context) return context.plan;
+        throw new IllegalArgumentException("Parent context must be created by ContextConfig: " + parent);
+    }
+
+    static class PlanContext implements Context {
+        final ResolutionPlan plan;
+        private final Optional<Executor> executor;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        PlanContext(ResolutionPlan plan) {
+            this(plan, Optional.empty());
+        }
+
+        PlanContext(ResolutionPlan plan, Optional<Executor> executor) {
+            this.plan = plan;
+            this.executor = executor;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) plan.close(executor);
+        }
+
+        @Override
+        public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> componentRef) {
+            if (closed.get()) throw Lifecycle.LifecycleException.closed();
+            if (componentRef.isContainer()) {
+                if (componentRef.getContainer() == Provider.class) return (Optional<ComponentType>) plan.instance(componentRef.component());
+                if (componentRef.getContainer() == Lazy.class) return (Optional<ComponentType>) plan.lazy(componentRef.component());
+                if (!componentRef.isCollection()) return Optional.empty();
+            }
+            return Optional.ofNullable(getOrNull(componentRef));
+        }
+
+        @Override
+        public <ComponentType> ComponentType getOrNull(ComponentRef<ComponentType> componentRef) {
+            if (closed.get()) throw Lifecycle.LifecycleException.closed();
+            if (componentRef.isContainer() && !componentRef.isCollection()) return get(componentRef).orElse(null);
+            return (ComponentType) plan.component(componentRef.key());
+        }
+    }
+
+    private static void initializeSingletons(Context context, Map<Component, ComponentProvider<?>> components, Collection<Component> checked, Executor executor) {
+        Map<Component, CompletableFuture<?>> initialized = new HashMap<>(components.size() * 2);
+        for (Component component : checked) {
+            ComponentProvider<?> provider = components.get(component);
+            CompletableFuture<?> dependencies = CompletableFuture.allOf(provider.getDependencies().stream()
+                    .filter(d -> !d.isContainer() || d.isCollection()).map(d -> initialized.get(d.key())).filter(Objects::nonNull).toArray(CompletableFuture[]::new));
+            initialized.put(component, provider instanceof SingletonProvider<?>
+                    ? dependencies.thenRunAsync(() -> provider.get(context), executor) : dependencies);
+        }
+        try {
+            CompletableFuture.allOf(initialized.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    void injectStaticMembers(Context context, Map<Component, ComponentProvider<?>> components) {
         for (final Component component : staticsComponents) {
             Optional.ofNullable(components.get(component))
                     .ifPresent(p -> p.statics(context));
         }
     }
 
-    public void checkDependencies(Component component, Stack<Component> visiting) {
-        components.get(component).getDependencies().forEach(dependency -> checkDependency(component, visiting, dependency));
+    static Collection<Component> checkDependencies(Map<Component, ComponentProvider<?>> components) {
+        return checkDependencies(components, c -> false);
+    }
+
+    static Collection<Component> checkDependencies(Map<Component, ComponentProvider<?>> components, Predicate<Component> inherited) {
+        Set<Component> checked = new LinkedHashSet<>(components.size() * 2);
+        for (Component component : components.keySet())
+            if (!checked.contains(component)) checkDependencies(components, inherited, component, checked);
+        return checked;
     }
 
-    private void checkDependency(Component component, Stack<Component> visiting, ComponentRef dependency) {
-        if (!components.containsKey(dependency.component()))
-            throw unsatisfiedResolution(component, dependency.component());
-        if (!dependency.isContainer()) {
-            if (visiting.contains(dependency.component()))
-                throw circularDependencies(visiting, dependency.component());
-            visiting.push(dependency.component());
-            checkDependencies(dependency.component(), visiting);
-            visiting.pop();
+    private static void checkDependencies(Map<Component, ComponentProvider<?>> components, Predicate<Component> inherited, Component root, Set<Component> checked) {
+        record Visiting(Component component, Iterator<ComponentRef<?>> dependencies) {
+        }
+        LinkedHashSet<Component> path = new LinkedHashSet<>();
+        Deque<Visiting> visiting = new ArrayDeque<>();
+        path.add(root);
+        visiting.push(new Visiting(root, components.get(root).getDependencies().iterator()));
+        while (!visiting.isEmpty()) {
+            Visiting current = visiting.peek();
+            if (!current.dependencies().hasNext()) {
+                visiting.pop();
+                path.remove(current.component());
+                checked.add(current.component());
+                continue;
+            }
+            ComponentRef<?> dependency = current.dependencies().next();
+            Component target = dependency.key();
+            ComponentProvider<?> provider = components.get(target);
+            if (provider == null) {
+                if (inherited.test(target)) continue;
+                throw unsatisfiedResolution(current.component(), target);
+            }
+            if ((dependency.isContainer() && !dependency.isCollection()) || checked.contains(target)) continue;
+            if (path.contains(target))
+                throw circularDependencies(path.stream().dropWhile(c -> !c.equals(target)).toList(), target);
+            path.add(target);
+            visiting.push(new Visiting(target, provider.getDependencies().iterator()));
         }
     }
 
     interface ScopeProvider {
         ComponentProvider<?> create(ComponentProvider<?> provider);
+
+        default ComponentProvider<?> create(Annotation scope, ComponentProvider<?> provider) {
+            return create(provider);
+        }
     }
 
     static class ContextConfigError extends Error {
@@ -197,6 +487,10 @@ public class ContextConfig {
             return new ContextConfigException(MessageFormat.format("Duplicated: {0}", component));
         }
 
+        static ContextConfigException interceptedAfterBinding(Class<? extends Annotation> binding) {
+            return new ContextConfigException(MessageFormat.format("Interceptor of {0} registered after components were bound", binding));
+        }
+
         ContextConfigException(String message) {
             super(message);
         }
@@ -210,9 +504,7 @@ public class ContextConfig {
         }
 
         public void bind() {
-            for (Declaration declaration : declarations()) {
-                declaration.value().ifPresentOrElse(declaration::bindInstance, declaration::bindComponent);
-            }
+            bindAll(declarations().stream().map(Declaration::binding).toList());
         }
 
         private List<Declaration> declarations() {
@@ -226,12 +518,9 @@ public class ContextConfig {
                 this.field = field;
             }
 
-            void bindInstance(Object instance) {
-                ContextConfig.this.bindInstance(type(), instance, annotations(), statics());
-            }
-
-            void bindComponent() {
-                ContextConfig.this.bindComponent(type(), field.getType(), annotations(), statics());
+            Binding binding() {
+                return value().map(instance -> new Binding(type(), null, instance, annotations(), statics()))
+                        .orElseGet(() -> new Binding(type(), field.getType(), null, annotations(), statics()));
             }
 
             private Optional<Object> value() {
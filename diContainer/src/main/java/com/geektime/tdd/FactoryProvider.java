@@ -0,0 +1,48 @@
+package com.geektime.tdd;
+
+import java.util.List;
+
+class FactoryProvider<T> implements ComponentProvider<T> {
+    private final ComponentFactory<T> factory;
+    private final Lifecycle lifecycle;
+
+    FactoryProvider(final ComponentFactory<T> factory) {
+        this.factory = factory;
+        this.lifecycle = Lifecycle.of(factory.type(), InjectionEngine.REFLECTION);
+    }
+
+    @Override
+    public T get(final Context context) {
+        T instance = factory.create(context);
+        lifecycle.postConstruct(instance);
+        return instance;
+    }
+
+    @Override
+    public void destroy(final T instance) {
+        lifecycle.preDestroy(instance);
+    }
+
+    @Override
+    public void statics(final Context context) {
+        factory.statics(context);
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return factory.dependencies();
+    }
+
+    @Override
+    public ComponentProvider<T> instrument(final Component component, final Instrumentation instrumentation) {
+        return new FactoryProvider<>(factory) {
+            @Override
+            public T get(final Context context) {
+                long start = System.nanoTime();
+                T instance = super.get(context);
+                instrumentation.instantiated(component, System.nanoTime() - start, 0);
+                return instance;
+            }
+        };
+    }
+}
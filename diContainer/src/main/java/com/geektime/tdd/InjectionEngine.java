@@ -0,0 +1,115 @@
+package com.geektime.tdd;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+
+import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodType.methodType;
+
+public enum InjectionEngine {
+    REFLECTION {
+        @Override
+        Invoker invoker(final AccessibleObject element) {
+            if (element instanceof Constructor<?> constructor) return (target, arguments) -> {
+                try {
+                    return constructor.newInstance(arguments);
+                } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+            if (element instanceof Method method) return (target, arguments) -> {
+                try {
+                    return method.invoke(target, arguments);
+                } catch (InvocationTargetException | IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+            Field field = (Field) element;
+            return new Invoker() {
+                @Override
+                public Object invoke(final Object target, final Object[] arguments) {
+                    return assign(target, arguments[0]);
+                }
+
+                @Override
+                public Object assign(final Object target, final Object value) {
+                    try {
+                        field.set(target, value);
+                        return null;
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+        }
+    },
+    METHOD_HANDLE {
+        private static final MethodType INVOKER = methodType(Object.class, Object.class, Object[].class);
+        private static final MethodType SETTER = methodType(void.class, Object.class, Object.class);
+
+        @Override
+        Invoker invoker(final AccessibleObject element) {
+            MethodHandle handle = receiverFirst(unreflect(element), element);
+            MethodHandle invoker = handle.asSpreader(Object[].class, handle.type().parameterCount() - 1).asType(INVOKER);
+            if (!(element instanceof Field)) return (target, arguments) -> {
+                try {
+                    return (Object) invoker.invokeExact(target, arguments);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+            MethodHandle setter = handle.asType(SETTER);
+            return new Invoker() {
+                @Override
+                public Object invoke(final Object target, final Object[] arguments) {
+                    return assign(target, arguments[0]);
+                }
+
+                @Override
+                public Object assign(final Object target, final Object value) {
+                    try {
+                        setter.invokeExact(target, value);
+                        return null;
+                    } catch (Throwable e) {
+                        throw rethrow(e);
+                    }
+                }
+            };
+        }
+
+        private static RuntimeException rethrow(final Throwable e) {
+            if (e instanceof RuntimeException runtime) return runtime;
+            if (e instanceof Error error) throw error;
+            return new RuntimeException(e);
+        }
+
+        private static MethodHandle unreflect(final AccessibleObject element) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                if (element instanceof Constructor<?> constructor) return lookup.unreflectConstructor(constructor);
+                if (element instanceof Method method) return lookup.unreflect(method);
+                return lookup.unreflectSetter((Field) element);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static MethodHandle receiverFirst(final MethodHandle handle, final AccessibleObject element) {
+            if (element instanceof Constructor<?> || Modifier.isStatic(((Member) element).getModifiers()))
+                return dropArguments(handle, 0, Object.class);
+            return handle;
+        }
+    };
+
+    abstract Invoker invoker(AccessibleObject element);
+
+    interface Invoker {
+        Object invoke(Object target, Object[] arguments);
+
+        default Object assign(Object target, Object value) {
+            return invoke(target, new Object[]{value});
+        }
+    }
+}
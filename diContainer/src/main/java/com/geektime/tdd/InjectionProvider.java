@@ -9,7 +9,6 @@ import java.text.MessageFormat;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.geektime.tdd.InjectionProvider.Injectable.of;
@@ -17,30 +16,82 @@ import static java.util.Arrays.stream;
 import static java.util.stream.Stream.concat;
 
 class InjectionProvider<T> implements ComponentProvider<T> {
-    private final Injectable<Constructor<T>> injectConstructor;
-    private Collection<Class<?>> superClasses;
-    private Map<Class<?>, List<Injectable<Method>>> injectMethods;
-    private Map<Class<?>, List<Injectable<Field>>> injectFields;
+    private static final Map<InjectionEngine, ClassValue<Metadata>> METADATA = new EnumMap<>(InjectionEngine.class);
+
+    static {
+        for (InjectionEngine engine : InjectionEngine.values())
+            METADATA.put(engine, new ClassValue<>() {
+                @Override
+                protected Metadata computeValue(final Class<?> component) {
+                    return Metadata.of(component, engine);
+                }
+            });
+    }
+
+    private final Injection injectConstructor;
+    private final Injection[] injectMembers;
+    private final Injection[] staticMembers;
+    private final Lifecycle lifecycle;
     private List<ComponentRef<?>> dependencies;
 
     InjectionProvider(Class<T> component) {
-        if (Modifier.isAbstract(component.getModifiers())) throw ComponentError.abstractComponent(component);
-        injectConstructor = getInjectConstructor(component);
-        superClasses = allSuperClass(component);
-        var injectFields = getInjectFields(component);
-        var injectMethods = getInjectMethods(component);
+        this(component, InjectionEngine.REFLECTION);
+    }
 
-        this.injectMethods = groupByClass(injectMethods);
-        this.injectFields = groupByClass(injectFields);
+    InjectionProvider(Class<T> component, InjectionEngine engine) {
+        this(component, engine, Interceptors.NONE);
+    }
 
-        dependencies = concat(concat(Stream.of(injectConstructor), injectFields.stream()),
-                injectMethods.stream())
-                .flatMap(injectable -> stream(injectable.required())).toList();
+    InjectionProvider(Class<T> component, InjectionEngine engine, Interceptors interceptors) {
+        Metadata metadata = METADATA.get(engine).get(component);
 
+        this.injectConstructor = new Injection(interceptors.constructor(component, metadata.constructor(), engine));
+        this.injectMembers = injections(metadata.injectMembers());
+        this.staticMembers = injections(metadata.staticMembers());
+        this.lifecycle = Lifecycle.of(component, engine);
+        this.dependencies = metadata.dependencies();
     }
 
-    private static <E extends AccessibleObject> Map<Class<?>, List<Injectable<E>>> groupByClass(List<Injectable<E>> injectMethods) {
-        return injectMethods.stream().collect(Collectors.groupingBy(i -> ((Member) i.element()).getDeclaringClass()));
+    private InjectionProvider(InjectionProvider<T> provider) {
+        this.injectConstructor = new Injection(provider.injectConstructor.injectable());
+        this.injectMembers = injections(stream(provider.injectMembers).map(Injection::injectable).toArray(Injectable<?>[]::new));
+        this.staticMembers = injections(stream(provider.staticMembers).map(Injection::injectable).toArray(Injectable<?>[]::new));
+        this.lifecycle = provider.lifecycle;
+        this.dependencies = provider.dependencies;
+    }
+
+    private static Injection[] injections(Injectable<?>[] members) {
+        Injection[] injections = new Injection[members.length];
+        for (int i = 0; i < members.length; i++) injections[i] = new Injection(members[i]);
+        return injections;
+    }
+
+    record Metadata(Injectable<?> constructor, List<Injectable<?>> members, List<ComponentRef<?>> dependencies,
+                    Injectable<?>[] injectMembers, Injectable<?>[] staticMembers) {
+        Metadata(Injectable<?> constructor, List<Injectable<?>> members, List<ComponentRef<?>> dependencies) {
+            this(constructor, members, dependencies, members.stream().filter(m -> !isStatic(m)).toArray(Injectable<?>[]::new),
+                    members.stream().filter(InjectionProvider::isStatic).toArray(Injectable<?>[]::new));
+        }
+
+        static Metadata of(Class<?> component, InjectionEngine engine) {
+            if (Modifier.isAbstract(component.getModifiers())) throw ComponentError.abstractComponent(component);
+            var injectConstructor = getInjectConstructor(component, engine);
+            var injectFields = getInjectFields(component, engine);
+            var injectMethods = getInjectMethods(component, engine);
+
+            return new Metadata(injectConstructor, orderBySuperClass(component, injectFields, injectMethods),
+                    concat(concat(Stream.of(injectConstructor), injectFields.stream()), injectMethods.stream())
+                            .flatMap(injectable -> stream(injectable.required())).toList());
+        }
+    }
+
+    private static List<Injectable<?>> orderBySuperClass(Class<?> component, List<Injectable<Field>> injectFields, List<Injectable<Method>> injectMethods) {
+        List<Injectable<?>> result = new ArrayList<>();
+        for (final Class<?> superClass : allSuperClass(component)) {
+            injectFields.stream().filter(f -> f.element().getDeclaringClass() == superClass).forEach(result::add);
+            injectMethods.stream().filter(m -> m.element().getDeclaringClass() == superClass).forEach(result::add);
+        }
+        return result;
     }
 
     private static List<Class<?>> allSuperClass(Class<?> component) {
@@ -52,28 +103,54 @@ class InjectionProvider<T> implements ComponentProvider<T> {
         return result;
     }
 
-    record Injectable<Element extends AccessibleObject>(Element element, ComponentRef<?>[] required) {
-        public Object[] toDependencies(Context context) {
-            return stream(required).map(context::get).map(Optional::get).toArray();
+    record Injection(Injectable<?> injectable, ResolutionPlan.Resolver[] resolvers) {
+        private static final Object[] NO_DEPENDENCIES = new Object[0];
+
+        Injection(Injectable<?> injectable) {
+            this(injectable, new ResolutionPlan.Resolver[injectable.required().length]);
         }
 
-        static <Element extends Executable> Injectable<Element> of(Element element) {
+        Object inject(Context context, Object target) {
+            if (resolvers.length == 0) return injectable.invoker().invoke(target, NO_DEPENDENCIES);
+            if (resolvers[0] == null) {
+                if (injectable.element() instanceof Field) return injectable.invoker().assign(target, context.require(injectable.required()[0]));
+                return injectable.invoker().invoke(target, context.resolveAll(injectable.required()));
+            }
+            if (injectable.element() instanceof Field) return injectable.invoker().assign(target, resolvers[0].resolve(context));
+            Object[] dependencies = new Object[resolvers.length];
+            for (int i = 0; i < resolvers.length; i++) dependencies[i] = resolvers[i].resolve(context);
+            return injectable.invoker().invoke(target, dependencies);
+        }
+
+        void link(ResolutionPlan plan) {
+            for (int i = 0; i < resolvers.length; i++) resolvers[i] = plan.resolver(injectable.required()[i]);
+        }
+    }
+
+    record Injectable<Element extends AccessibleObject>(Element element, ComponentRef<?>[] required, InjectionEngine.Invoker invoker) {
+        static <Element extends Executable> Injectable<Element> of(Element element, InjectionEngine engine) {
             element.setAccessible(true);
-            return new Injectable<>(element, stream(element.getParameters()).map(Injectable::toComponentRef).toArray(ComponentRef<?>[]::new));
+            return new Injectable<>(element, stream(element.getParameters()).map(Injectable::toComponentRef).toArray(ComponentRef<?>[]::new), engine.invoker(element));
         }
 
-        static Injectable<Field> of(Field field) {
+        static Injectable<Field> of(Field field, InjectionEngine engine) {
             field.setAccessible(true);
-            return new Injectable<>(field, new ComponentRef<?>[]{toComponentRef(field)});
+            return new Injectable<>(field, new ComponentRef<?>[]{toComponentRef(field)}, engine.invoker(field));
         }
 
 
         private static ComponentRef<?> toComponentRef(Parameter parameter) {
-            return ComponentRef.of(parameter.getParameterizedType(), getQualifier(parameter));
+            return toComponentRef(parameter, parameter.getParameterizedType());
         }
 
         private static ComponentRef<?> toComponentRef(Field field) {
-            return ComponentRef.of(field.getGenericType(), getQualifier(field));
+            return toComponentRef(field, field.getGenericType());
+        }
+
+        private static ComponentRef<?> toComponentRef(AnnotatedElement element, Type type) {
+            if (!element.isAnnotationPresent(Lazy.class)) return ComponentRef.of(type, getQualifier(element));
+            if (!(type instanceof Class<?> lazy && lazy.isInterface())) throw ComponentError.lazyNotInterface(element, type);
+            return ComponentRef.of(Lazy.class, lazy, getQualifier(element));
         }
 
         private static Annotation getQualifier(final AnnotatedElement element) {
@@ -86,41 +163,91 @@ class InjectionProvider<T> implements ComponentProvider<T> {
 
     @Override
     public T get(Context context) {
-        try {
-            T instance = this.injectConstructor.element().newInstance(injectConstructor.toDependencies(context));
-            injectMembers(context, instance, false);
+        T instance = construct(context);
+        initialize(context, instance);
+        return instance;
+    }
+
+    final T construct(Context context) {
+        return (T) injectConstructor.inject(context, null);
+    }
+
+    final void initialize(Context context, T instance) {
+        injectMembers(context, instance, injectMembers);
+        lifecycle.postConstruct(instance);
+    }
+
+    @Override
+    public void destroy(T instance) {
+        lifecycle.preDestroy(instance);
+    }
+
+    @Override
+    public ComponentProvider<T> fork() {
+        return new InjectionProvider<>(this);
+    }
+
+    @Override
+    public ComponentProvider<T> instrument(Component component, Instrumentation instrumentation) {
+        return new Instrumented<>(this, component, instrumentation);
+    }
+
+    private static class Instrumented<T> extends InjectionProvider<T> {
+        private final Component component;
+        private final Instrumentation instrumentation;
+
+        Instrumented(InjectionProvider<T> provider, Component component, Instrumentation instrumentation) {
+            super(provider);
+            this.component = component;
+            this.instrumentation = instrumentation;
+        }
+
+        @Override
+        public ComponentProvider<T> fork() {
+            return new Instrumented<>(this, component, instrumentation);
+        }
+
+        @Override
+        public T get(Context context) {
+            long start = System.nanoTime();
+            T instance = construct(context);
+            long constructed = System.nanoTime();
+            initialize(context, instance);
+            instrumentation.instantiated(component, constructed - start, System.nanoTime() - constructed);
             return instance;
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException(e);
         }
     }
 
-    private void injectMembers(Context context, T instance, boolean statics) throws IllegalAccessException, InvocationTargetException {
-        for (final Class<?> superClass : superClasses) {
-            for (Injectable<Field> injectField : injectMembers(superClass, injectFields, f -> statics == isStatic(f))) {
-                injectField.element().set(instance, injectField.toDependencies(context)[0]);
-            }
-            for (Injectable<Method> injectMethod : injectMembers(superClass, injectMethods, f -> statics == isStatic(f))) {
-                injectMethod.element().invoke(instance, injectMethod.toDependencies(context));
-            }
-        }
+    Injectable<?> constructor() {
+        return injectConstructor.injectable();
     }
 
-    private <E extends AccessibleObject> boolean isStatic(Injectable<E> f) {
-        return Modifier.isStatic(((Member) f.element()).getModifiers());
+    Lifecycle lifecycle() {
+        return lifecycle;
     }
 
-    private <E extends AccessibleObject> List<Injectable<E>> injectMembers(Class<?> superClass, Map<Class<?>, List<Injectable<E>>> members, Predicate<Injectable<E>> predicate) {
-        return members.getOrDefault(superClass, List.of()).stream().filter(predicate).toList();
+    List<Injectable<?>> members() {
+        return stream(injectMembers).<Injectable<?>>map(Injection::injectable).toList();
+    }
+
+    private void injectMembers(Context context, T instance, Injection[] members) {
+        for (Injection member : members) member.inject(context, instance);
+    }
+
+    private static boolean isStatic(Injectable<?> f) {
+        return Modifier.isStatic(((Member) f.element()).getModifiers());
     }
 
     @Override
     public void statics(Context context) {
-        try {
-            injectMembers(context, null, true);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(e);
-        }
+        injectMembers(context, null, staticMembers);
+    }
+
+    @Override
+    public void link(ResolutionPlan plan) {
+        injectConstructor.link(plan);
+        for (Injection member : injectMembers) member.link(plan);
+        for (Injection member : staticMembers) member.link(plan);
     }
 
     @Override
@@ -129,25 +256,27 @@ class InjectionProvider<T> implements ComponentProvider<T> {
     }
 
 
-    private static List<Injectable<Method>> getInjectMethods(Class<?> component) {
-        List<Injectable<Method>> injectables = InjectionProvider.<Method>traverse(component, (injectMethods1, current) -> injectable(current.getDeclaredMethods())
+    private static List<Injectable<Method>> getInjectMethods(Class<?> component, InjectionEngine engine) {
+        List<Method> injectMethods = InjectionProvider.<Method>traverse(component, (injectMethods1, current) -> injectable(current.getDeclaredMethods())
                 .filter(m -> isOverrideByInjectMethod(injectMethods1, m))
                 .filter(m -> isOverrideByNoInjectMethod(component, m))
-                .toList()).stream().map(Injectable::of).toList();
+                .toList());
 
-        return check(component, injectables, InjectionProvider::hasTypeParameter, ComponentError::injectMethodsWithTypeParameter);
+        return check(component, injectMethods, InjectionProvider::hasTypeParameter, ComponentError::injectMethodsWithTypeParameter)
+                .stream().map(m -> Injectable.of(m, engine)).toList();
     }
 
-    private static List<Injectable<Field>> getInjectFields(Class<?> component) {
-        List<Injectable<Field>> injectables = InjectionProvider.<Field>traverse(component, (fields, current) -> injectable(current.getDeclaredFields()).toList()).stream().map(Injectable::of).toList();
-        return check(component, injectables, InjectionProvider::isFinal, ComponentError::finalInjectFields);
+    private static List<Injectable<Field>> getInjectFields(Class<?> component, InjectionEngine engine) {
+        List<Field> injectFields = InjectionProvider.<Field>traverse(component, (fields, current) -> injectable(current.getDeclaredFields()).toList());
+        return check(component, injectFields, InjectionProvider::isFinal, ComponentError::finalInjectFields)
+                .stream().map(f -> Injectable.of(f, engine)).toList();
     }
 
-    private static <T> Injectable<Constructor<T>> getInjectConstructor(Class<T> component) {
+    private static <T> Injectable<Constructor<T>> getInjectConstructor(Class<T> component, InjectionEngine engine) {
         List<Constructor<?>> injectConstructors = injectable(component.getDeclaredConstructors())
                 .toList();
         if (injectConstructors.size() > 1) throw ComponentError.ambiguousInjectableConstructors(component);
-        return of(defaultConstructor(component, injectConstructors));
+        return of(defaultConstructor(component, injectConstructors), engine);
     }
 
 
@@ -167,7 +296,7 @@ class InjectionProvider<T> implements ComponentProvider<T> {
         return stream(element).filter(f -> f.isAnnotationPresent(Inject.class));
     }
 
-    private static boolean isOverride(final Method method, final Method other) {
+    static boolean isOverride(final Method method, final Method other) {
         boolean visible;
         if (method.getDeclaringClass().getPackageName().equals(other.getDeclaringClass().getPackageName()))
             visible = !Modifier.isPrivate(other.getModifiers()) && !Modifier.isPrivate(method.getModifiers());
@@ -197,12 +326,11 @@ class InjectionProvider<T> implements ComponentProvider<T> {
         return injectMethods;
     }
 
-    private static <E extends AccessibleObject> List<Injectable<E>> check(Class<?> component, List<Injectable<E>> injectables, Predicate<E> predicate, BiFunction<Class<?>, Collection<E>, ComponentError> a) {
-        Collection<E> elements = injectables.stream().map(Injectable::element).toList();
+    private static <E extends AccessibleObject> List<E> check(Class<?> component, List<E> elements, Predicate<E> predicate, BiFunction<Class<?>, Collection<E>, ComponentError> a) {
         if (elements.stream().anyMatch(predicate)) {
             throw a.apply(component, elements);
         }
-        return injectables;
+        return elements;
     }
 
     private static boolean hasTypeParameter(final Method m) {
@@ -238,14 +366,31 @@ class InjectionProvider<T> implements ComponentProvider<T> {
             return new ComponentError(MessageFormat.format("No default constructors: {0}", component));
         }
 
+        public static ComponentError lazyNotInterface(AnnotatedElement element, Type type) {
+            return new ComponentError(MessageFormat.format("Lazy injection requires an interface: {0} on {1} of {2}",
+                    type.getTypeName(), element, declaringClass(element)));
+        }
+
         public static ComponentError ambiguousQualifiers(AnnotatedElement element, List<Annotation> qualifiers) {
-            Class<?> component;
-            if (element instanceof Parameter p) component = p.getDeclaringExecutable().getDeclaringClass();
-            else component = ((Field) element).getDeclaringClass();
+            Class<?> component = declaringClass(element);
             return new ComponentError(MessageFormat.format("Ambiguous qualifiers: {0} on {1} of {2}",
                     String.join(" , ", qualifiers.stream().map(Object::toString).toList()), element, component));
         }
 
+        public static ComponentError illegalLifecycleMethod(Class<?> component, Method method, Class<? extends Annotation> annotation) {
+            return new ComponentError(MessageFormat.format("@{0} method can not be static or have parameters: {1} in {2}",
+                    annotation.getSimpleName(), method.getName(), component));
+        }
+
+        public static ComponentError notInterceptable(Class<?> component) {
+            return new ComponentError(MessageFormat.format("Can not generate interceptor subclass: {0}", component));
+        }
+
+        private static Class<?> declaringClass(AnnotatedElement element) {
+            if (element instanceof Parameter p) return p.getDeclaringExecutable().getDeclaringClass();
+            return ((Field) element).getDeclaringClass();
+        }
+
         ComponentError(String message) {
             super(message);
         }
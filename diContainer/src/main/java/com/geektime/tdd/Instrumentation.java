@@ -0,0 +1,38 @@
+package com.geektime.tdd;
+
+public interface Instrumentation {
+    default void instantiated(Component component, long constructionNanos, long injectionNanos) {
+    }
+
+    default void singletonInitialized(Component component, long nanos) {
+    }
+
+    default void contextCreated(int components, long nanos) {
+    }
+
+    static Instrumentation jfr() {
+        return new JfrInstrumentation();
+    }
+
+    static Instrumentation of(Instrumentation... instrumentations) {
+        return new Instrumentation() {
+            @Override
+            public void instantiated(final Component component, final long constructionNanos, final long injectionNanos) {
+                for (Instrumentation instrumentation : instrumentations)
+                    instrumentation.instantiated(component, constructionNanos, injectionNanos);
+            }
+
+            @Override
+            public void singletonInitialized(final Component component, final long nanos) {
+                for (Instrumentation instrumentation : instrumentations)
+                    instrumentation.singletonInitialized(component, nanos);
+            }
+
+            @Override
+            public void contextCreated(final int components, final long nanos) {
+                for (Instrumentation instrumentation : instrumentations)
+                    instrumentation.contextCreated(components, nanos);
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.geektime.tdd;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Arrays.stream;
+
+final class Interceptors {
+    static final Interceptors NONE = new Interceptors();
+    private static final String SUFFIX = "$$Intercepted$";
+    private static final AtomicInteger GENERATED = new AtomicInteger();
+    private static final ClassValue<Map<List<Method>, Constructor<?>>> SUBCLASSES = new ClassValue<>() {
+        @Override
+        protected Map<List<Method>, Constructor<?>> computeValue(final Class<?> component) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private record Binding(Class<? extends Annotation> annotation, MethodInterceptor interceptor) {
+    }
+
+    private record Intercepted(Constructor<?> constructor, MethodChain[] chains) {
+    }
+
+    private final List<Binding> bindings = new ArrayList<>();
+    private final Map<Class<?>, Optional<Intercepted>> constructors = new HashMap<>();
+
+    void add(Class<? extends Annotation> annotation, MethodInterceptor interceptor) {
+        bindings.add(new Binding(annotation, interceptor));
+        constructors.clear();
+    }
+
+    void addAll(Interceptors interceptors) {
+        bindings.addAll(interceptors.bindings);
+        constructors.clear();
+    }
+
+    boolean intercepts(Class<?> component) {
+        return !bindings.isEmpty() && !chains(component).isEmpty();
+    }
+
+    InjectionProvider.Injectable<?> constructor(Class<?> component, InjectionProvider.Injectable<?> constructor, InjectionEngine engine) {
+        if (bindings.isEmpty()) return constructor;
+        Optional<Intercepted> intercepted = constructors.computeIfAbsent(component, c -> subclass(c, (Constructor<?>) constructor.element()));
+        if (intercepted.isEmpty()) return constructor;
+        Constructor<?> generated = intercepted.get().constructor();
+        MethodChain[] chains = intercepted.get().chains();
+        InjectionEngine.Invoker invoker = engine.invoker(generated);
+        return new InjectionProvider.Injectable<>(generated, constructor.required(), (target, arguments) -> {
+            Object[] parameters = new Object[arguments.length + 1];
+            parameters[0] = chains;
+            System.arraycopy(arguments, 0, parameters, 1, arguments.length);
+            return invoker.invoke(target, parameters);
+        });
+    }
+
+    private Map<Method, MethodInterceptor[]> chains(Class<?> component) {
+        Map<Method, MethodInterceptor[]> chains = new LinkedHashMap<>();
+        for (Method method : overridable(component)) {
+            List<MethodInterceptor> interceptors = new ArrayList<>();
+            boolean declared = false;
+            for (Binding binding : bindings) {
+                if (method.isAnnotationPresent(binding.annotation())) declared = true;
+                else if (!component.isAnnotationPresent(binding.annotation()) || Modifier.isFinal(method.getModifiers())) continue;
+                interceptors.add(binding.interceptor());
+            }
+            if (interceptors.isEmpty()) continue;
+            if (declared && (Modifier.isFinal(method.getModifiers()) || Modifier.isFinal(component.getModifiers())))
+                throw InjectionProvider.ComponentError.notInterceptable(component);
+            chains.put(method, interceptors.toArray(MethodInterceptor[]::new));
+        }
+        return chains;
+    }
+
+    private static Collection<Method> overridable(Class<?> component) {
+        Map<List<Object>, Method> methods = new LinkedHashMap<>();
+        for (Class<?> current = component; current != null && current != Object.class; current = current.getSuperclass())
+            for (Method method : current.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                if (method.isSynthetic() || Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers)) continue;
+                if (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers)
+                        && !current.getPackageName().equals(component.getPackageName())) continue;
+                methods.putIfAbsent(signature(method), method);
+            }
+        for (Method method : component.getMethods())
+            if (method.getDeclaringClass() != Object.class && !method.isSynthetic() && !Modifier.isStatic(method.getModifiers()))
+                methods.putIfAbsent(signature(method), method);
+        return methods.values();
+    }
+
+    private static List<Object> signature(Method method) {
+        return List.of(method.getName(), List.of(method.getParameterTypes()));
+    }
+
+    private Optional<Intercepted> subclass(Class<?> component, Constructor<?> constructor) {
+        Map<Method, MethodInterceptor[]> chains = chains(component);
+        if (chains.isEmpty()) return Optional.empty();
+        if (Modifier.isFinal(component.getModifiers()) || Modifier.isPrivate(constructor.getModifiers()))
+            throw InjectionProvider.ComponentError.notInterceptable(component);
+        List<Method> methods = List.copyOf(chains.keySet());
+        Constructor<?> subclass = SUBCLASSES.get(component).computeIfAbsent(methods, m -> generate(component, constructor, m));
+        MethodChain[] methodChains = new MethodChain[methods.size()];
+        for (int i = 0; i < methodChains.length; i++)
+            methodChains[i] = new MethodChain(methods.get(i), i, chains.get(methods.get(i)));
+        return Optional.of(new Intercepted(subclass, methodChains));
+    }
+
+    private static Constructor<?> generate(Class<?> component, Constructor<?> constructor, List<Method> methods) {
+        try {
+            for (Class<?> type : constructor.getParameterTypes()) if (type.isHidden()) throw InjectionProvider.ComponentError.notInterceptable(component);
+            for (Method method : methods)
+                if (method.getReturnType().isHidden() || stream(method.getParameterTypes()).anyMatch(Class::isHidden))
+                    throw InjectionProvider.ComponentError.notInterceptable(component);
+            byte[] bytecode = SubclassWriter.write(component.getName().replace('.', '/') + SUFFIX + GENERATED.incrementAndGet(), component, constructor, methods);
+            Class<?> subclass = MethodHandles.privateLookupIn(component, MethodHandles.lookup()).defineClass(bytecode);
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(subclass, MethodHandles.lookup());
+            for (Method method : methods)
+                lookup.findSpecial(component, method.getName(), methodType(method.getReturnType(), method.getParameterTypes()), subclass);
+            Class<?>[] parameters = new Class<?>[constructor.getParameterCount() + 1];
+            parameters[0] = BiFunction[].class;
+            System.arraycopy(constructor.getParameterTypes(), 0, parameters, 1, constructor.getParameterCount());
+            Constructor<?> generated = subclass.getDeclaredConstructor(parameters);
+            generated.setAccessible(true);
+            return generated;
+        } catch (ReflectiveOperationException | IllegalArgumentException | LinkageError e) {
+            throw InjectionProvider.ComponentError.notInterceptable(component);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.geektime.tdd;
+
+import java.lang.reflect.Method;
+
+public final class Invocation {
+    private final MethodChain chain;
+    private final Object target;
+    private final Object[] arguments;
+    private final int next;
+
+    Invocation(MethodChain chain, Object target, Object[] arguments, int next) {
+        this.chain = chain;
+        this.target = target;
+        this.arguments = arguments;
+        this.next = next;
+    }
+
+    public Object target() {
+        return target;
+    }
+
+    public Method method() {
+        return chain.method();
+    }
+
+    public Object[] arguments() {
+        return arguments;
+    }
+
+    public Object proceed() throws Throwable {
+        return chain.proceed(next, target, arguments);
+    }
+}
@@ -0,0 +1,77 @@
+package com.geektime.tdd;
+
+import jdk.jfr.*;
+
+import java.util.Objects;
+
+class JfrInstrumentation implements Instrumentation {
+    @Override
+    public void instantiated(final Component component, final long constructionNanos, final long injectionNanos) {
+        InstantiationEvent event = new InstantiationEvent();
+        if (!event.shouldCommit()) return;
+        event.type = component.type();
+        event.qualifier = Objects.toString(component.qualifier(), null);
+        event.construction = constructionNanos;
+        event.injection = injectionNanos;
+        event.commit();
+    }
+
+    @Override
+    public void singletonInitialized(final Component component, final long nanos) {
+        SingletonInitializationEvent event = new SingletonInitializationEvent();
+        if (!event.shouldCommit()) return;
+        event.type = component.type();
+        event.qualifier = Objects.toString(component.qualifier(), null);
+        event.initialization = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void contextCreated(final int components, final long nanos) {
+        ContextCreationEvent event = new ContextCreationEvent();
+        if (!event.shouldCommit()) return;
+        event.components = components;
+        event.creation = nanos;
+        event.commit();
+    }
+
+    @Name("com.geektime.tdd.Instantiation")
+    @Label("Component Instantiation")
+    @Category("Dependency Injection")
+    static class InstantiationEvent extends Event {
+        @Label("Type")
+        Class<?> type;
+        @Label("Qualifier")
+        String qualifier;
+        @Label("Construction")
+        @Timespan
+        long construction;
+        @Label("Member Injection")
+        @Timespan
+        long injection;
+    }
+
+    @Name("com.geektime.tdd.SingletonInitialization")
+    @Label("Singleton Initialization")
+    @Category("Dependency Injection")
+    static class SingletonInitializationEvent extends Event {
+        @Label("Type")
+        Class<?> type;
+        @Label("Qualifier")
+        String qualifier;
+        @Label("Initialization")
+        @Timespan
+        long initialization;
+    }
+
+    @Name("com.geektime.tdd.ContextCreation")
+    @Label("Context Creation")
+    @Category("Dependency Injection")
+    static class ContextCreationEvent extends Event {
+        @Label("Components")
+        int components;
+        @Label("Creation")
+        @Timespan
+        long creation;
+    }
+}
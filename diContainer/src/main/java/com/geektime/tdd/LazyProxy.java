@@ -0,0 +1,70 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Provider;
+
+import java.lang.reflect.InaccessibleObjectException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class LazyProxy implements InvocationHandler {
+    private static final ClassValue<Map<Method, Method>> METHODS = new ClassValue<>() {
+        @Override
+        protected Map<Method, Method> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Class<?> type;
+    private final Provider<?> provider;
+    private volatile Object instance;
+
+    private LazyProxy(final Class<?> type, final Provider<?> provider) {
+        this.type = type;
+        this.provider = provider;
+    }
+
+    static Object of(Class<?> type, Provider<?> provider) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new LazyProxy(type, provider));
+    }
+
+    Object instance() {
+        Object target = instance;
+        if (target != null) return target;
+        synchronized (this) {
+            if (instance == null) instance = provider.get();
+            return instance;
+        }
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) return invokeObject(proxy, method, args);
+        try {
+            return METHODS.get(type).computeIfAbsent(method, LazyProxy::accessible).invoke(instance(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object invokeObject(final Object proxy, final Method method, final Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> "Lazy<" + type.getName() + ">@" + Integer.toHexString(System.identityHashCode(proxy));
+        };
+    }
+
+    private static Method accessible(final Method method) {
+        try {
+            Method accessible = method.getDeclaringClass().getDeclaredMethod(method.getName(), method.getParameterTypes());
+            accessible.setAccessible(true);
+            return accessible;
+        } catch (NoSuchMethodException | InaccessibleObjectException | SecurityException e) {
+            return method;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.geektime.tdd;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+final class Lifecycle {
+    private static final Map<InjectionEngine, ClassValue<Lifecycle>> LIFECYCLES = new EnumMap<>(InjectionEngine.class);
+    private static final InjectionEngine.Invoker[] NO_CALLBACKS = new InjectionEngine.Invoker[0];
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+    static final Lifecycle NONE = new Lifecycle(NO_CALLBACKS, NO_CALLBACKS);
+
+    static {
+        for (InjectionEngine engine : InjectionEngine.values())
+            LIFECYCLES.put(engine, new ClassValue<>() {
+                @Override
+                protected Lifecycle computeValue(final Class<?> component) {
+                    return Lifecycle.create(component, engine);
+                }
+            });
+    }
+
+    private final InjectionEngine.Invoker[] postConstruct;
+    private final InjectionEngine.Invoker[] preDestroy;
+
+    private Lifecycle(InjectionEngine.Invoker[] postConstruct, InjectionEngine.Invoker[] preDestroy) {
+        this.postConstruct = postConstruct;
+        this.preDestroy = preDestroy;
+    }
+
+    static Lifecycle of(Class<?> component, InjectionEngine engine) {
+        return LIFECYCLES.get(engine).get(component);
+    }
+
+    private static Lifecycle create(Class<?> component, InjectionEngine engine) {
+        List<Method> postConstruct = callbacks(component, PostConstruct.class);
+        List<Method> preDestroy = callbacks(component, PreDestroy.class);
+        if (postConstruct.isEmpty() && preDestroy.isEmpty()) return NONE;
+        Collections.reverse(preDestroy);
+        return new Lifecycle(invokers(postConstruct, engine), invokers(preDestroy, engine));
+    }
+
+    private static List<Method> callbacks(Class<?> component, Class<? extends Annotation> annotation) {
+        List<Method> declared = new ArrayList<>();
+        List<Method> callbacks = new ArrayList<>();
+        for (Class<?> current = component; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(annotation) && declared.stream().noneMatch(o -> InjectionProvider.isOverride(o, method))) {
+                    if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() > 0)
+                        throw InjectionProvider.ComponentError.illegalLifecycleMethod(component, method, annotation);
+                    callbacks.add(0, method);
+                }
+            }
+            declared.addAll(List.of(current.getDeclaredMethods()));
+        }
+        return callbacks;
+    }
+
+    private static InjectionEngine.Invoker[] invokers(List<Method> methods, InjectionEngine engine) {
+        InjectionEngine.Invoker[] invokers = new InjectionEngine.Invoker[methods.size()];
+        for (int i = 0; i < invokers.length; i++) {
+            methods.get(i).setAccessible(true);
+            invokers[i] = engine.invoker(methods.get(i));
+        }
+        return invokers;
+    }
+
+    boolean hasPostConstruct() {
+        return postConstruct.length > 0;
+    }
+
+    void postConstruct(Object instance) {
+        for (InjectionEngine.Invoker callback : postConstruct) callback.invoke(instance, NO_ARGUMENTS);
+    }
+
+    void preDestroy(Object instance) {
+        for (InjectionEngine.Invoker callback : preDestroy) callback.invoke(instance, NO_ARGUMENTS);
+    }
+
+    static class LifecycleException extends RuntimeException {
+        static LifecycleException destroy(Throwable cause) {
+            return new LifecycleException("Failed to destroy component", cause);
+        }
+
+        static LifecycleException closed() {
+            return new LifecycleException("Context already closed", null);
+        }
+
+        static LifecycleException interrupted(InterruptedException cause) {
+            return new LifecycleException("Interrupted while closing context", cause);
+        }
+
+        LifecycleException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.geektime.tdd;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public final class LiveContext implements Context {
+    private static final System.Logger LOGGER = System.getLogger(LiveContext.class.getName());
+    private final ResolutionPlan parent;
+    private final Function<Map<Component, Multibinding>, ContextConfig> configs;
+    private volatile Snapshot snapshot;
+
+    private static final class Snapshot {
+        private static final int READER = 2;
+        private static final int RETIRED = 1;
+        private static final int RELEASED = Integer.MIN_VALUE;
+
+        final Map<Component, ComponentProvider<?>> components;
+        final Map<Component, Set<Component>> dependents;
+        final Map<Component, Multibinding> multibindings;
+        final Context context;
+        private final AtomicInteger state = new AtomicInteger();
+        private Map<Component, ComponentProvider<?>> superseded = Map.of();
+
+        Snapshot(Map<Component, ComponentProvider<?>> components, Map<Component, Set<Component>> dependents,
+                 Map<Component, Multibinding> multibindings, Context context) {
+            this.components = components;
+            this.dependents = dependents;
+            this.multibindings = multibindings;
+            this.context = context;
+        }
+
+        void exit() {
+            if (state.addAndGet(-READER) == RETIRED) release();
+        }
+
+        void retire(Map<Component, ComponentProvider<?>> superseded) {
+            this.superseded = superseded;
+            if (state.addAndGet(RETIRED) == RETIRED) release();
+        }
+
+        private void release() {
+            if (!state.compareAndSet(RETIRED, RELEASED)) return;
+            try {
+                new ResolutionPlan(superseded, superseded.keySet()).close(Optional.empty());
+            } catch (Lifecycle.LifecycleException e) {
+                LOGGER.log(System.Logger.Level.WARNING, "Failed to close superseded components", e);
+            }
+        }
+    }
+
+    LiveContext(Map<Component, ComponentProvider<?>> components, Map<Component, Multibinding> multibindings, ResolutionPlan parent,
+                Function<Map<Component, Multibinding>, ContextConfig> configs) {
+        this.parent = parent;
+        this.configs = configs;
+        ContextConfig.checkDependencies(components, this::inherited);
+        Map<Component, Set<Component>> dependents = new HashMap<>();
+        for (Map.Entry<Component, ComponentProvider<?>> entry : components.entrySet())
+            for (ComponentRef<?> dependency : entry.getValue().getDependencies())
+                dependents.computeIfAbsent(dependency.key(), c -> new HashSet<>()).add(entry.getKey());
+        this.snapshot = snapshot(new HashMap<>(components), dependents, Map.copyOf(multibindings), components.keySet());
+    }
+
+    @Override
+    public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+        Snapshot current = enter();
+        try {
+            return current.context.get(ref);
+        } finally {
+            current.exit();
+        }
+    }
+
+    @Override
+    public <ComponentType> ComponentType getOrNull(ComponentRef<ComponentType> ref) {
+        Snapshot current = enter();
+        try {
+            return current.context.getOrNull(ref);
+        } finally {
+            current.exit();
+        }
+    }
+
+    @Override
+    public void close() {
+        snapshot.context.close();
+    }
+
+    private Snapshot enter() {
+        while (true) {
+            Snapshot current = snapshot;
+            current.state.addAndGet(Snapshot.READER);
+            if (current == snapshot) return current;
+            current.exit();
+        }
+    }
+
+    public synchronized void update(Consumer<ContextConfig> changes) {
+        Snapshot current = snapshot;
+        ContextConfig config = configs.apply(current.multibindings);
+        changes.accept(config);
+        Map<Component, ComponentProvider<?>> bound = config.bindings();
+
+        Set<Component> affected = affected(current.dependents, bound.keySet());
+        Map<Component, ComponentProvider<?>> components = new HashMap<>(current.components);
+        Map<Component, ComponentProvider<?>> subgraph = new HashMap<>(affected.size() * 2);
+        Map<ComponentProvider<?>, ComponentProvider<?>> forks = new IdentityHashMap<>();
+        for (Component component : affected) {
+            ComponentProvider<?> provider = bound.containsKey(component) ? bound.get(component)
+                    : forks.computeIfAbsent(components.get(component), ComponentProvider::fork);
+            components.put(component, provider);
+            subgraph.put(component, provider);
+        }
+        ContextConfig.checkDependencies(subgraph, c -> components.containsKey(c) || inherited(c));
+
+        Map<Component, Set<Component>> dependents = new HashMap<>(current.dependents);
+        for (Component component : bound.keySet()) {
+            ComponentProvider<?> previous = current.components.get(component);
+            if (previous != null) removeDependents(dependents, component, previous);
+            addDependents(dependents, component, bound.get(component));
+        }
+        snapshot = snapshot(components, dependents, Map.copyOf(config.multibindings()), affected);
+        config.injectStaticMembers(snapshot.context, subgraph);
+        current.retire(superseded(current.components, components, affected));
+    }
+
+    private boolean inherited(Component component) {
+        return parent != null && parent.contains(component);
+    }
+
+    private Snapshot snapshot(Map<Component, ComponentProvider<?>> components, Map<Component, Set<Component>> dependents,
+                              Map<Component, Multibinding> multibindings, Collection<Component> link) {
+        ResolutionPlan plan = new ResolutionPlan(components, components.keySet(), parent);
+        Context context = new ContextConfig.PlanContext(plan);
+        plan.link(context, link);
+        return new Snapshot(Collections.unmodifiableMap(components), dependents, multibindings, context);
+    }
+
+    private static Map<Component, ComponentProvider<?>> superseded(Map<Component, ComponentProvider<?>> previous,
+                                                                   Map<Component, ComponentProvider<?>> components, Set<Component> affected) {
+        Set<ComponentProvider<?>> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+        retained.addAll(components.values());
+        Map<Component, ComponentProvider<?>> superseded = new HashMap<>();
+        for (Component component : affected) {
+            ComponentProvider<?> provider = previous.get(component);
+            if (provider != null && !retained.contains(provider)) superseded.put(component, provider);
+        }
+        return superseded;
+    }
+
+    private static Set<Component> affected(Map<Component, Set<Component>> dependents, Collection<Component> changed) {
+        Set<Component> affected = new HashSet<>(changed);
+        Deque<Component> pending = new ArrayDeque<>(changed);
+        while (!pending.isEmpty())
+            for (Component dependent : dependents.getOrDefault(pending.pop(), Set.of()))
+                if (affected.add(dependent)) pending.push(dependent);
+        return affected;
+    }
+
+    private static void addDependents(Map<Component, Set<Component>> dependents, Component component, ComponentProvider<?> provider) {
+        for (ComponentRef<?> dependency : provider.getDependencies()) {
+            Set<Component> updated = new HashSet<>(dependents.getOrDefault(dependency.key(), Set.of()));
+            updated.add(component);
+            dependents.put(dependency.key(), updated);
+        }
+    }
+
+    private static void removeDependents(Map<Component, Set<Component>> dependents, Component component, ComponentProvider<?> provider) {
+        for (ComponentRef<?> dependency : provider.getDependencies()) {
+            Set<Component> updated = new HashSet<>(dependents.getOrDefault(dependency.key(), Set.of()));
+            updated.remove(component);
+            dependents.put(dependency.key(), updated);
+        }
+    }
+}
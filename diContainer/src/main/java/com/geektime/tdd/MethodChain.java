@@ -0,0 +1,50 @@
+package com.geektime.tdd;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.function.BiFunction;
+
+final class MethodChain implements BiFunction<Object, Object[], Object> {
+    public interface Intercepted {
+        Object $super(int method, Object[] arguments) throws Throwable;
+    }
+
+    private final Method method;
+    private final int index;
+    private final MethodInterceptor[] interceptors;
+
+    MethodChain(Method method, int index, MethodInterceptor[] interceptors) {
+        this.method = method;
+        this.index = index;
+        this.interceptors = interceptors;
+    }
+
+    Method method() {
+        return method;
+    }
+
+    @Override
+    public Object apply(Object target, Object[] arguments) {
+        try {
+            return interceptors[0].intercept(new Invocation(this, target, arguments, 1));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    Object proceed(int next, Object target, Object[] arguments) throws Throwable {
+        if (next == interceptors.length) return ((Intercepted) target).$super(index, arguments);
+        return interceptors[next].intercept(new Invocation(this, target, arguments, next + 1));
+    }
+
+    private RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException || e instanceof Error) throw MethodChain.<RuntimeException>sneaky(e);
+        for (Class<?> declared : method.getExceptionTypes())
+            if (declared.isInstance(e)) throw MethodChain.<RuntimeException>sneaky(e);
+        return new UndeclaredThrowableException(e);
+    }
+
+    private static <E extends Throwable> E sneaky(Throwable e) throws E {
+        throw (E) e;
+    }
+}
@@ -0,0 +1,5 @@
+package com.geektime.tdd;
+
+public interface MethodInterceptor {
+    Object intercept(Invocation invocation) throws Throwable;
+}
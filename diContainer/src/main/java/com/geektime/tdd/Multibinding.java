@@ -0,0 +1,115 @@
+package com.geektime.tdd;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+final class Multibinding implements ComponentProvider<Object> {
+    static final Set<Class<?>> CONTAINERS = Set.of(List.class, Set.class, Map.class);
+
+    @Retention(RUNTIME)
+    private @interface Contributions {
+    }
+
+    record Key(Class<?> container, Type key, Component element) implements Annotation {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Contributions.class;
+        }
+    }
+
+    record Element(Component collection, int index, String key) implements Annotation {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Contributions.class;
+        }
+    }
+
+    static Component collection(Class<?> container, Component element) {
+        return collection(container, container == Map.class ? String.class : null, element);
+    }
+
+    static Component collection(Class<?> container, Type key, Component element) {
+        return new Component(container, new Key(container, key, element));
+    }
+
+    private final Class<?> container;
+    private final Component element;
+    private final Component collection;
+    private final List<ComponentRef<?>> elements = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private ResolutionPlan.Resolver[] resolvers;
+
+    Multibinding(Class<?> container, Component element) {
+        this.container = container;
+        this.element = element;
+        this.collection = collection(container, element);
+    }
+
+    private Multibinding(Multibinding multibinding) {
+        this.container = multibinding.container;
+        this.element = multibinding.element;
+        this.collection = multibinding.collection;
+        this.elements.addAll(multibinding.elements);
+        this.keys.addAll(multibinding.keys);
+    }
+
+    Component collection() {
+        return collection;
+    }
+
+    Component contribution(String key) {
+        return new Component(element.type(), new Element(collection, container == Map.class ? 0 : elements.size(), key));
+    }
+
+    boolean contains(String key) {
+        return container == Map.class && keys.contains(key);
+    }
+
+    Component add(String key) {
+        Component contribution = contribution(key);
+        elements.add(ComponentRef.of(contribution.type(), contribution.qualifier()));
+        keys.add(key);
+        return contribution;
+    }
+
+    @Override
+    public Object get(final Context context) {
+        ResolutionPlan.Resolver[] resolvers = this.resolvers;
+        Object[] values;
+        if (resolvers == null) values = context.resolveAll(elements.toArray(ComponentRef<?>[]::new));
+        else {
+            values = new Object[resolvers.length];
+            for (int i = 0; i < values.length; i++) values[i] = resolvers[i].resolve(context);
+        }
+        if (container == List.class) return List.of(values);
+        if (container == Set.class) {
+            Set<Object> set = new LinkedHashSet<>((int) (values.length / 0.75f) + 1);
+            Collections.addAll(set, values);
+            return Collections.unmodifiableSet(set);
+        }
+        Map<String, Object> map = new LinkedHashMap<>((int) (values.length / 0.75f) + 1);
+        for (int i = 0; i < values.length; i++) map.put(keys.get(i), values[i]);
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    @Override
+    public void link(final ResolutionPlan plan) {
+        ResolutionPlan.Resolver[] resolvers = new ResolutionPlan.Resolver[elements.size()];
+        for (int i = 0; i < resolvers.length; i++) resolvers[i] = plan.resolver(elements.get(i));
+        this.resolvers = resolvers;
+    }
+
+    @Override
+    public ComponentProvider<Object> fork() {
+        return new Multibinding(this);
+    }
+}
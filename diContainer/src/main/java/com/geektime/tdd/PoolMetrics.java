@@ -0,0 +1,8 @@
+package com.geektime.tdd;
+
+public record PoolMetrics(int size, int created, int idle, long hits, long misses, long waits, long waitNanos) {
+    public double hitRate() {
+        long borrows = hits + misses;
+        return borrows == 0 ? 0 : (double) hits / borrows;
+    }
+}
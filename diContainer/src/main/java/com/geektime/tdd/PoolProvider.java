@@ -0,0 +1,143 @@
+package com.geektime.tdd;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class PoolProvider<T> implements ComponentProvider<T> {
+    static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private final ComponentProvider<T> provider;
+    private final int size;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+    private final Stats stats;
+    private volatile boolean closed;
+
+    PoolProvider(final ComponentProvider<T> provider, final int size, final long timeoutMillis) {
+        this(provider, size, timeoutMillis, new Semaphore(checkSize(size)), new Stats());
+    }
+
+    private PoolProvider(final ComponentProvider<T> provider, final int size, final long timeoutMillis, final Semaphore permits, final Stats stats) {
+        this.provider = provider;
+        this.size = size;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = permits;
+        this.stats = stats;
+    }
+
+    private static int checkSize(int size) {
+        if (size < 1) throw new IllegalArgumentException("Pool size must be positive: " + size);
+        return size;
+    }
+
+    private static class Stats {
+        final LongAdder created = new LongAdder();
+        final LongAdder idle = new LongAdder();
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder waits = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+    }
+
+    static ContextConfig.ScopeProvider scope() {
+        return new ContextConfig.ScopeProvider() {
+            @Override
+            public ComponentProvider<?> create(final ComponentProvider<?> provider) {
+                return new PoolProvider<>(provider, 8, DEFAULT_TIMEOUT_MILLIS);
+            }
+
+            @Override
+            public ComponentProvider<?> create(final Annotation scope, final ComponentProvider<?> provider) {
+                PoolScoped pooled = (PoolScoped) scope;
+                return new PoolProvider<>(provider, pooled.size(), pooled.timeoutMillis());
+            }
+        };
+    }
+
+    @Override
+    public T get(final Context context) {
+        return PoolScope.current().orElseThrow(() -> ScopedInstances.ScopeException.inactive(PoolScoped.class)).borrow(this, context);
+    }
+
+    T acquire(Context context, int held) {
+        if (!permits.tryAcquire()) {
+            if (held >= size) throw ScopedInstances.ScopeException.reentrant(PoolScoped.class);
+            await();
+        }
+        T instance = idle.poll();
+        if (instance != null) {
+            stats.idle.decrement();
+            stats.hits.increment();
+            return instance;
+        }
+        stats.misses.increment();
+        try {
+            instance = provider.get(context);
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+        stats.created.increment();
+        return instance;
+    }
+
+    private void await() {
+        long start = System.nanoTime();
+        stats.waits.increment();
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS))
+                throw ScopedInstances.ScopeException.exhausted(PoolScoped.class, timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ScopedInstances.ScopeException.interrupted(e);
+        } finally {
+            stats.waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    void release(Object instance) {
+        idle.offer((T) instance);
+        stats.idle.increment();
+        permits.release();
+        if (closed) drain();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        drain();
+    }
+
+    private void drain() {
+        T instance;
+        while ((instance = idle.poll()) != null) {
+            stats.idle.decrement();
+            provider.destroy(instance);
+        }
+    }
+
+    PoolMetrics metrics() {
+        return new PoolMetrics(size, stats.created.intValue(), stats.idle.intValue(), stats.hits.sum(), stats.misses.sum(), stats.waits.sum(), stats.waitNanos.sum());
+    }
+
+    @Override
+    public ComponentProvider<T> fork() {
+        return new PoolProvider<>(provider.fork(), size, timeoutMillis, permits, stats);
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(final ResolutionPlan plan) {
+        provider.link(plan);
+    }
+}
@@ -0,0 +1,49 @@
+package com.geektime.tdd;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public final class PoolScope implements AutoCloseable {
+    private static final ThreadLocal<PoolScope> CURRENT = new ThreadLocal<>();
+
+    private final Map<PoolProvider<?>, Object> borrowed = new IdentityHashMap<>();
+    private final PoolScope previous;
+
+    private PoolScope(PoolScope previous) {
+        this.previous = previous;
+    }
+
+    public static PoolScope open() {
+        PoolScope scope = new PoolScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static Optional<PoolScope> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    <T> T borrow(PoolProvider<T> pool, Context context) {
+        Object instance = borrowed.get(pool);
+        if (instance == null) borrowed.put(pool, instance = pool.acquire(context, held(pool)));
+        return (T) instance;
+    }
+
+    private int held(PoolProvider<?> pool) {
+        int held = 0;
+        for (PoolScope scope = previous; scope != null; scope = scope.previous)
+            if (scope.borrowed.containsKey(pool)) held++;
+        return held;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+        borrowed.forEach(PoolProvider::release);
+        borrowed.clear();
+    }
+}
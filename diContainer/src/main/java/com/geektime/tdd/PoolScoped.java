@@ -0,0 +1,17 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+@Scope
+@Documented
+@Retention(RUNTIME)
+public @interface PoolScoped {
+    int size() default 8;
+
+    long timeoutMillis() default 30_000;
+}
@@ -0,0 +1,62 @@
+package com.geektime.tdd;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+public final class RequestScope implements AutoCloseable {
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    private final ScopedInstances instances = new ScopedInstances();
+    private final Thread owner = Thread.currentThread();
+    private final RequestScope previous;
+
+    private RequestScope(RequestScope previous) {
+        this.previous = previous;
+    }
+
+    public static RequestScope open() {
+        RequestScope scope = new RequestScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Optional<RequestScope> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    public void run(Runnable runnable) {
+        call(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public <T> T call(Callable<T> callable) {
+        RequestScope outer = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return callable.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            restore(outer);
+        }
+    }
+
+    ScopedInstances instances() {
+        return instances;
+    }
+
+    @Override
+    public void close() {
+        if (Thread.currentThread() == owner && CURRENT.get() == this) restore(previous);
+        instances.close();
+    }
+
+    private static void restore(RequestScope scope) {
+        if (scope == null) CURRENT.remove();
+        else CURRENT.set(scope);
+    }
+}
@@ -0,0 +1,192 @@
+package com.geektime.tdd;
+
+import jakarta.inject.Provider;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+final class ResolutionPlan {
+    private final Map<Component, Integer> slots;
+    private final ComponentProvider<?>[] providers;
+    private final Optional<?>[] instances;
+    private final ResolutionPlan parent;
+    private Context context;
+
+    ResolutionPlan(Map<Component, ComponentProvider<?>> components, Collection<Component> order) {
+        this(components, order, null);
+    }
+
+    ResolutionPlan(Map<Component, ComponentProvider<?>> components, Collection<Component> order, ResolutionPlan parent) {
+        this.parent = parent;
+        slots = new HashMap<>(order.size() * 2);
+        providers = new ComponentProvider<?>[order.size()];
+        instances = new Optional<?>[order.size()];
+        for (Component component : order) {
+            providers[slots.size()] = components.get(component);
+            slots.put(component, slots.size());
+        }
+    }
+
+    void link(Context context) {
+        link(context, slots.keySet());
+    }
+
+    void link(Context context, Collection<Component> components) {
+        this.context = context;
+        for (int i = 0; i < providers.length; i++) {
+            ComponentProvider<?> provider = providers[i];
+            instances[i] = Optional.of((Provider<Object>) () -> provider.get(context));
+        }
+        for (Component component : components) providers[slots.get(component)].link(this);
+    }
+
+    Map<Component, Integer> slots() {
+        return slots;
+    }
+
+    ComponentProvider<?>[] providers() {
+        return providers;
+    }
+
+    boolean contains(Component component) {
+        return slots.containsKey(component) || parent != null && parent.contains(component);
+    }
+
+    Object component(Component component) {
+        Integer slot = slots.get(component);
+        if (slot == null) return parent == null ? null : parent.component(component);
+        return providers[slot].get(context);
+    }
+
+    Optional<?> instance(Component component) {
+        Integer slot = slots.get(component);
+        if (slot == null) return parent == null ? Optional.empty() : parent.instance(component);
+        return instances[slot];
+    }
+
+    Optional<?> lazy(Component component) {
+        return instance(component).map(provider -> LazyProxy.of(component.type(), (Provider<?>) provider));
+    }
+
+    Resolver resolver(ComponentRef<?> ref) {
+        Integer slot = slots.get(ref.key());
+        if (slot == null) return parent == null ? lookup(ref) : parent.inherited(ref);
+        if (!ref.isContainer() || ref.isCollection()) return providers[slot]::get;
+        if (ref.getContainer() == Provider.class) {
+            Object instance = instances[slot].get();
+            return context -> instance;
+        }
+        if (ref.getContainer() == Lazy.class) {
+            Provider<?> provider = (Provider<?>) instances[slot].get();
+            Class<?> type = ref.component().type();
+            return context -> LazyProxy.of(type, provider);
+        }
+        return lookup(ref);
+    }
+
+    private Resolver inherited(ComponentRef<?> ref) {
+        Resolver resolver = resolver(ref);
+        Context context = this.context;
+        return ignored -> resolver.resolve(context);
+    }
+
+    void close(Optional<Executor> executor) {
+        new Shutdown(executor).run();
+    }
+
+    private final class Shutdown {
+        private final Optional<Executor> executor;
+        private final ComponentProvider<?>[] nodes;
+        private final int[][] dependencies;
+        private final AtomicIntegerArray dependents;
+        private final AtomicInteger remaining;
+        private final Queue<Integer> ready = new ConcurrentLinkedQueue<>();
+        private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        Shutdown(Optional<Executor> executor) {
+            this.executor = executor;
+            Map<ComponentProvider<?>, Integer> indexes = new IdentityHashMap<>();
+            int[] node = new int[providers.length];
+            for (int i = 0; i < providers.length; i++) node[i] = indexes.computeIfAbsent(providers[i], p -> indexes.size());
+            nodes = new ComponentProvider<?>[indexes.size()];
+            indexes.forEach((provider, index) -> nodes[index] = provider);
+            dependencies = new int[nodes.length][];
+            dependents = new AtomicIntegerArray(nodes.length);
+            remaining = new AtomicInteger(nodes.length);
+            for (int i = 0; i < nodes.length; i++) {
+                BitSet targets = new BitSet(nodes.length);
+                for (ComponentRef<?> ref : nodes[i].getDependencies()) {
+                    if (ref.isContainer() && !ref.isCollection()) continue;
+                    Integer slot = ResolutionPlan.this.slots.get(ref.key());
+                    if (slot != null && node[slot] != i) targets.set(node[slot]);
+                }
+                dependencies[i] = targets.stream().toArray();
+                for (int target : dependencies[i]) dependents.incrementAndGet(target);
+            }
+        }
+
+        void run() {
+            for (int i = 0; i < nodes.length; i++) if (dependents.get(i) == 0) schedule(i);
+            try {
+                Integer node;
+                while (remaining.get() > 0) {
+                    if ((node = ready.poll()) != null) close(node);
+                    else synchronized (this) {
+                        while (remaining.get() > 0 && ready.isEmpty()) wait();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Lifecycle.LifecycleException.interrupted(e);
+            }
+            RuntimeException failure = null;
+            for (Throwable e : failures) {
+                if (failure == null) failure = Lifecycle.LifecycleException.destroy(e);
+                else failure.addSuppressed(e);
+            }
+            if (failure != null) throw failure;
+        }
+
+        private void schedule(int node) {
+            ready.add(node);
+            synchronized (this) {
+                notifyAll();
+            }
+            executor.ifPresent(executor -> {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException ignored) {
+                }
+            });
+        }
+
+        private void drain() {
+            Integer node;
+            while ((node = ready.poll()) != null) close(node);
+        }
+
+        private void close(int node) {
+            try {
+                nodes[node].close();
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+            for (int dependency : dependencies[node]) if (dependents.decrementAndGet(dependency) == 0) schedule(dependency);
+            if (remaining.decrementAndGet() == 0) synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    static Resolver lookup(ComponentRef<?> ref) {
+        return context -> context.require(ref);
+    }
+
+    interface Resolver {
+        Object resolve(Context context);
+    }
+}
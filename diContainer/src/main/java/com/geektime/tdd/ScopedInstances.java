@@ -0,0 +1,80 @@
+package com.geektime.tdd;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class ScopedInstances implements AutoCloseable {
+    private final Map<ComponentProvider<?>, Object> instances = new ConcurrentHashMap<>();
+    private final List<Object> created = new ArrayList<>();
+    private boolean closed;
+
+    <T> T get(ComponentProvider<T> key, ComponentProvider<T> provider, Context context) {
+        Object instance = instances.get(key);
+        if (instance != null) return (T) instance;
+        synchronized (this) {
+            if (closed) throw ScopeException.closed();
+            instance = instances.get(key);
+            if (instance == null) {
+                instance = provider.get(context);
+                instances.put(key, instance);
+                created.add(instance);
+            }
+            return (T) instance;
+        }
+    }
+
+    @Override
+    public void close() {
+        List<Object> release;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            release = new ArrayList<>(created);
+            instances.clear();
+            created.clear();
+        }
+        RuntimeException failure = null;
+        for (int i = release.size() - 1; i >= 0; i--) {
+            if (!(release.get(i) instanceof AutoCloseable closeable)) continue;
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                if (failure == null) failure = ScopeException.release(e);
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    static class ScopeException extends RuntimeException {
+        static ScopeException inactive(Class<?> scope) {
+            return new ScopeException("No active scope: @" + scope.getSimpleName(), null);
+        }
+
+        static ScopeException closed() {
+            return new ScopeException("Scope already closed", null);
+        }
+
+        static ScopeException exhausted(Class<?> scope, long timeoutMillis) {
+            return new ScopeException("No instance released within " + timeoutMillis + " ms: @" + scope.getSimpleName(), null);
+        }
+
+        static ScopeException reentrant(Class<?> scope) {
+            return new ScopeException("All instances held by enclosing scopes of current thread: @" + scope.getSimpleName(), null);
+        }
+
+        static ScopeException interrupted(InterruptedException cause) {
+            return new ScopeException("Interrupted while waiting for scoped instance", cause);
+        }
+
+        static ScopeException release(Exception cause) {
+            return new ScopeException("Failed to release scoped instance", cause);
+        }
+
+        ScopeException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.geektime.tdd;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+class ScopedProvider<T> implements ComponentProvider<T> {
+    private final ComponentProvider<T> provider;
+    private final Supplier<ScopedInstances> scope;
+
+    ScopedProvider(final ComponentProvider<T> provider, final Supplier<ScopedInstances> scope) {
+        this.provider = provider;
+        this.scope = scope;
+    }
+
+    static <T> ScopedProvider<T> thread(ComponentProvider<T> provider) {
+        return new ScopedProvider<>(provider, ThreadScope::instances);
+    }
+
+    static <T> ScopedProvider<T> request(ComponentProvider<T> provider) {
+        return new ScopedProvider<>(provider, () -> RequestScope.current()
+                .orElseThrow(() -> ScopedInstances.ScopeException.inactive(RequestScoped.class)).instances());
+    }
+
+    @Override
+    public T get(final Context context) {
+        return scope.get().get(this, provider, context);
+    }
+
+    @Override
+    public ComponentProvider<T> fork() {
+        return new ScopedProvider<>(provider.fork(), scope);
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(final ResolutionPlan plan) {
+        provider.link(plan);
+    }
+}
@@ -1,9 +1,24 @@
 package com.geektime.tdd;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 class SingletonProvider<T> implements ComponentProvider<T> {
-    private T singleton;
+    private static final VarHandle SINGLETON;
+    private static final Object CLOSED = new Object();
+
+    static {
+        try {
+            SINGLETON = MethodHandles.lookup().findVarHandle(SingletonProvider.class, "singleton", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Object singleton;
     private ComponentProvider<T> provider;
 
     public SingletonProvider(final ComponentProvider<T> provider) {
@@ -12,14 +27,71 @@ class SingletonProvider<T> implements ComponentProvider<T> {
 
     @Override
     public T get(final Context context) {
-        if (singleton == null) {
-            return singleton = provider.get(context);
+        Object instance = SINGLETON.getAcquire(this);
+        if (instance != null && instance != CLOSED) return (T) instance;
+        return initialize(() -> create(context));
+    }
+
+    T initialize(IntFunction<T> factory, int slot) {
+        return initialize(() -> factory.apply(slot));
+    }
+
+    private T initialize(Supplier<T> factory) {
+        synchronized (this) {
+            Object instance = singleton;
+            if (instance == CLOSED) throw Lifecycle.LifecycleException.closed();
+            if (instance == null) SINGLETON.setRelease(this, instance = factory.get());
+            return (T) instance;
+        }
+    }
+
+    ComponentProvider<T> provider() {
+        return provider;
+    }
+
+    T create(Context context) {
+        return provider.get(context);
+    }
+
+    @Override
+    public void close() {
+        Object instance;
+        synchronized (this) {
+            instance = SINGLETON.getAndSet(this, CLOSED);
         }
-        return singleton;
+        if (instance != null && instance != CLOSED) provider.destroy((T) instance);
     }
 
     @Override
     public List<ComponentRef<?>> getDependencies() {
         return provider.getDependencies();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void link(final ResolutionPlan plan) {
+        provider.link(plan);
+    }
+
+    @Override
+    public ComponentProvider<T> fork() {
+        return new SingletonProvider<>(provider.fork());
+    }
+
+    @Override
+    public ComponentProvider<T> instrument(final Component component, final Instrumentation instrumentation) {
+        return new SingletonProvider<>(provider) {
+            @Override
+            public ComponentProvider<T> fork() {
+                return super.fork().instrument(component, instrumentation);
+            }
+
+            @Override
+            T create(final Context context) {
+                long start = System.nanoTime();
+                T instance = super.create(context);
+                instrumentation.singletonInitialized(component, System.nanoTime() - start);
+                return instance;
+            }
+        };
+    }
+}
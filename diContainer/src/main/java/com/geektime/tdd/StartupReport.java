@@ -0,0 +1,130 @@
+package com.geektime.tdd;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+import static java.util.stream.Collectors.joining;
+
+public class StartupReport {
+    private final Map<Component, Node> nodes;
+    private final Map<Component, List<Component>> graph;
+    private final List<Component> criticalPath;
+    private final List<List<Component>> levels;
+
+    public record Node(Component component, long selfNanos, long cumulativeNanos, int level) {
+    }
+
+    StartupReport(Collection<Component> order, Map<Component, List<Component>> graph, ToLongFunction<Component> self) {
+        this.graph = graph;
+        this.nodes = new LinkedHashMap<>(order.size() * 2);
+        this.levels = new ArrayList<>();
+        Node last = null;
+        for (Component component : order) {
+            long selfNanos = self.applyAsLong(component);
+            long dependencies = 0;
+            int level = 0;
+            for (Component dependency : graph.get(component)) {
+                Node node = nodes.get(dependency);
+                if (node == null) continue;
+                dependencies = Math.max(dependencies, node.cumulativeNanos());
+                level = Math.max(level, node.level() + 1);
+            }
+            Node node = new Node(component, selfNanos, selfNanos + dependencies, level);
+            nodes.put(component, node);
+            if (levels.size() == level) levels.add(new ArrayList<>());
+            levels.get(level).add(component);
+            if (last == null || node.cumulativeNanos() > last.cumulativeNanos()) last = node;
+        }
+        this.criticalPath = criticalPath(last);
+    }
+
+    private List<Component> criticalPath(Node last) {
+        LinkedList<Component> path = new LinkedList<>();
+        for (Node current = last; current != null; ) {
+            path.addFirst(current.component());
+            current = graph.get(current.component()).stream().map(nodes::get).filter(Objects::nonNull)
+                    .max(Comparator.comparingLong(Node::cumulativeNanos)).orElse(null);
+        }
+        return path;
+    }
+
+    public Collection<Node> nodes() {
+        return Collections.unmodifiableCollection(nodes.values());
+    }
+
+    public Node node(Component component) {
+        return nodes.get(component);
+    }
+
+    public List<Component> criticalPath() {
+        return Collections.unmodifiableList(criticalPath);
+    }
+
+    public long criticalPathNanos() {
+        return criticalPath.isEmpty() ? 0 : nodes.get(criticalPath.get(criticalPath.size() - 1)).cumulativeNanos();
+    }
+
+    public List<List<Component>> levels() {
+        return levels.stream().map(List::copyOf).toList();
+    }
+
+    public List<List<Component>> widestLevels(int limit) {
+        return levels.stream().sorted(Comparator.comparingInt(List<Component>::size).reversed()).limit(limit).map(List::copyOf).toList();
+    }
+
+    public String text() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Critical path (%.3f ms):%n", millis(criticalPathNanos())));
+        for (Component component : criticalPath) text.append("  ").append(component).append(System.lineSeparator());
+        text.append(String.format("%-12s %-12s %-6s %s%n", "self(ms)", "cumul(ms)", "level", "component"));
+        nodes.values().stream().sorted(Comparator.comparingLong(Node::cumulativeNanos).reversed())
+                .forEach(n -> text.append(String.format("%-12.3f %-12.3f %-6d %s%n", millis(n.selfNanos()), millis(n.cumulativeNanos()), n.level(), n.component())));
+        text.append("Levels:").append(System.lineSeparator());
+        for (int i = 0; i < levels.size(); i++)
+            text.append(String.format("  %d: %d component(s)%n", i, levels.get(i).size()));
+        return text.toString();
+    }
+
+    public String dot() {
+        Set<Component> critical = new HashSet<>(criticalPath);
+        Map<Component, String> ids = new HashMap<>();
+        for (Component component : nodes.keySet()) ids.put(component, "n" + ids.size());
+        StringBuilder dot = new StringBuilder("digraph startup {\n");
+        for (Node node : nodes.values())
+            dot.append(String.format("  %s [label=\"%s\\nself %.3f ms\\ncumulative %.3f ms\"%s];%n", ids.get(node.component()),
+                    escape(node.component().toString()), millis(node.selfNanos()), millis(node.cumulativeNanos()),
+                    critical.contains(node.component()) ? ", color=red" : ""));
+        for (Component component : nodes.keySet())
+            for (Component dependency : graph.get(component))
+                if (ids.containsKey(dependency)) dot.append(String.format("  %s -> %s%s;%n", ids.get(component), ids.get(dependency),
+                        critical.contains(component) && critical.contains(dependency) ? " [color=red]" : ""));
+        return dot.append("}\n").toString();
+    }
+
+    public String json() {
+        return "{\"criticalPath\":[" + criticalPath.stream().map(c -> quote(c.toString())).collect(joining(","))
+                + "],\"criticalPathNanos\":" + criticalPathNanos()
+                + ",\"nodes\":[" + nodes.values().stream().map(n -> "{\"component\":" + quote(n.component().toString())
+                + ",\"selfNanos\":" + n.selfNanos() + ",\"cumulativeNanos\":" + n.cumulativeNanos() + ",\"level\":" + n.level()
+                + ",\"dependencies\":[" + graph.get(n.component()).stream().map(c -> quote(c.toString())).collect(joining(",")) + "]}").collect(joining(","))
+                + "],\"levels\":[" + levels.stream().map(l -> "[" + l.stream().map(c -> quote(c.toString())).collect(joining(",")) + "]").collect(joining(","))
+                + "]}";
+    }
+
+    @Override
+    public String toString() {
+        return text();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String quote(String value) {
+        return "\"" + escape(value) + "\"";
+    }
+}
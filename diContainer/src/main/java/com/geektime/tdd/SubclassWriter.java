@@ -0,0 +1,306 @@
+package com.geektime.tdd;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class SubclassWriter {
+    static final String FIELD = "$chains";
+    static final String CHAINS = "[Ljava/util/function/BiFunction;";
+    private static final String FUNCTION = "java/util/function/BiFunction";
+    private static final String APPLY = "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String INTERCEPTED = "com/geektime/tdd/MethodChain$Intercepted";
+    private static final String SUPER = "$super";
+    private static final String SUPER_DESCRIPTOR = "(I[Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String OUT_OF_BOUNDS = "java/lang/IndexOutOfBoundsException";
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION = 61;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_VARARGS = 0x0080;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ACONST_NULL = 0x01;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int ILOAD = 0x15;
+    private static final int LLOAD = 0x16;
+    private static final int FLOAD = 0x17;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD = 0x19;
+    private static final int ILOAD_1 = 0x1b;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int AALOAD = 0x32;
+    private static final int AASTORE = 0x53;
+    private static final int POP = 0x57;
+    private static final int DUP = 0x59;
+    private static final int TABLESWITCH = 0xaa;
+    private static final int IRETURN = 0xac;
+    private static final int LRETURN = 0xad;
+    private static final int FRETURN = 0xae;
+    private static final int DRETURN = 0xaf;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int NEW = 0xbb;
+    private static final int ANEWARRAY = 0xbd;
+    private static final int ATHROW = 0xbf;
+    private static final int CHECKCAST = 0xc0;
+    private static final int WIDE = 0xc4;
+    private static final int SAME_FRAME_EXTENDED = 251;
+
+    private final Buffer pool = new Buffer();
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int count = 1;
+    private final String name;
+    private final String superclass;
+
+    private SubclassWriter(String name, Class<?> superclass) {
+        this.name = name;
+        this.superclass = internal(superclass);
+    }
+
+    static byte[] write(String name, Class<?> component, Constructor<?> constructor, List<Method> methods) {
+        return new SubclassWriter(name, component).write(constructor, methods);
+    }
+
+    private byte[] write(Constructor<?> constructor, List<Method> methods) {
+        Buffer body = new Buffer();
+        body.u2(ACC_SYNTHETIC | ACC_SUPER | ACC_FINAL).u2(type(name)).u2(type(superclass)).u2(1).u2(type(INTERCEPTED));
+        body.u2(1).u2(ACC_PRIVATE | ACC_FINAL).u2(utf8(FIELD)).u2(utf8(CHAINS)).u2(0);
+        body.u2(methods.size() + 2);
+        constructor(body, constructor);
+        for (int i = 0; i < methods.size(); i++) method(body, methods.get(i), i);
+        invokeSuper(body, methods);
+        body.u2(0);
+        return new Buffer().u4(MAGIC).u2(0).u2(VERSION).u2(count).bytes(pool.toByteArray()).bytes(body.toByteArray()).toByteArray();
+    }
+
+    private void constructor(Buffer body, Constructor<?> constructor) {
+        Class<?>[] types = constructor.getParameterTypes();
+        String descriptor = MethodType.methodType(void.class, types).descriptorString();
+        Buffer code = new Buffer();
+        code.u1(ALOAD_0).u1(ALOAD_1).u1(PUTFIELD).u2(field(name, FIELD, CHAINS));
+        code.u1(ALOAD_0);
+        int slot = 2;
+        for (Class<?> type : types) slot = load(code, type, slot);
+        code.u1(INVOKESPECIAL).u2(method(superclass, "<init>", descriptor, false)).u1(RETURN);
+        int stack = Math.max(2, 1 + size(types));
+        code(body, 0, "<init>", "(" + CHAINS + descriptor.substring(1), stack, slot, code, null);
+    }
+
+    private void method(Buffer body, Method method, int index) {
+        Class<?>[] types = method.getParameterTypes();
+        Buffer code = new Buffer();
+        code.u1(ALOAD_0).u1(GETFIELD).u2(field(name, FIELD, CHAINS));
+        push(code, index);
+        code.u1(AALOAD).u1(ALOAD_0);
+        push(code, types.length);
+        code.u1(ANEWARRAY).u2(type("java/lang/Object"));
+        int slot = 1;
+        int widest = 0;
+        for (int i = 0; i < types.length; i++) {
+            code.u1(DUP);
+            push(code, i);
+            slot = load(code, types[i], slot);
+            if (types[i].isPrimitive()) {
+                Class<?> wrapper = wrapper(types[i]);
+                code.u1(INVOKESTATIC).u2(method(internal(wrapper), "valueOf", MethodType.methodType(wrapper, types[i]).descriptorString(), false));
+            }
+            code.u1(AASTORE);
+            widest = Math.max(widest, size(types[i]));
+        }
+        code.u1(INVOKEINTERFACE).u2(method(FUNCTION, "apply", APPLY, true)).u1(3).u1(0);
+        Class<?> returnType = method.getReturnType();
+        if (returnType == void.class) code.u1(POP).u1(RETURN);
+        else if (returnType.isPrimitive()) {
+            Class<?> wrapper = wrapper(returnType);
+            code.u1(CHECKCAST).u2(type(internal(wrapper)))
+                    .u1(INVOKEVIRTUAL).u2(method(internal(wrapper), returnType.getName() + "Value", MethodType.methodType(returnType).descriptorString(), false))
+                    .u1(returnOpcode(returnType));
+        } else code.u1(CHECKCAST).u2(type(internal(returnType))).u1(ARETURN);
+        int stack = Math.max(types.length == 0 ? 3 : 5 + widest, size(returnType));
+        int access = method.getModifiers() & (ACC_PUBLIC | ACC_PROTECTED) | (method.isVarArgs() ? ACC_VARARGS : 0);
+        code(body, access, method.getName(), MethodType.methodType(returnType, types).descriptorString(), stack, slot, code, null);
+    }
+
+    private void invokeSuper(Buffer body, List<Method> methods) {
+        int table = 4 + 12 + 4 * methods.size();
+        Buffer blocks = new Buffer();
+        Buffer frames = new Buffer().u2(methods.size() + 1);
+        int[] offsets = new int[methods.size()];
+        blocks.u1(NEW).u2(type(OUT_OF_BOUNDS)).u1(DUP).u1(ILOAD_1)
+                .u1(INVOKESPECIAL).u2(method(OUT_OF_BOUNDS, "<init>", "(I)V", false)).u1(ATHROW);
+        frames.u1(SAME_FRAME_EXTENDED).u2(table);
+        int stack = 3;
+        for (int i = 0; i < methods.size(); i++) {
+            offsets[i] = table + blocks.size();
+            frames.u1(SAME_FRAME_EXTENDED).u2(offsets[i] - (i == 0 ? table : offsets[i - 1]) - 1);
+            stack = Math.max(stack, invokeSuper(blocks, methods.get(i)));
+        }
+        Buffer code = new Buffer().u1(ILOAD_1).u1(TABLESWITCH).u1(0).u1(0)
+                .u4(table - 1).u4(0).u4(methods.size() - 1);
+        for (int offset : offsets) code.u4(offset - 1);
+        code.bytes(blocks.toByteArray());
+        code(body, ACC_PUBLIC | ACC_SYNTHETIC, SUPER, SUPER_DESCRIPTOR, stack, 3, code, frames);
+    }
+
+    private int invokeSuper(Buffer code, Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        code.u1(ALOAD_0);
+        int depth = 1, stack = 1;
+        for (int i = 0; i < types.length; i++) {
+            code.u1(ALOAD_2);
+            push(code, i);
+            code.u1(AALOAD);
+            if (types[i].isPrimitive()) {
+                Class<?> wrapper = wrapper(types[i]);
+                code.u1(CHECKCAST).u2(type(internal(wrapper)))
+                        .u1(INVOKEVIRTUAL).u2(method(internal(wrapper), types[i].getName() + "Value", MethodType.methodType(types[i]).descriptorString(), false));
+            } else if (types[i] != Object.class) code.u1(CHECKCAST).u2(type(internal(types[i])));
+            stack = Math.max(stack, depth + Math.max(2, size(types[i])));
+            depth += size(types[i]);
+        }
+        Class<?> returnType = method.getReturnType();
+        code.u1(INVOKESPECIAL).u2(method(superclass, method.getName(), MethodType.methodType(returnType, types).descriptorString(), false));
+        if (returnType == void.class) code.u1(ACONST_NULL);
+        else if (returnType.isPrimitive()) {
+            Class<?> wrapper = wrapper(returnType);
+            code.u1(INVOKESTATIC).u2(method(internal(wrapper), "valueOf", MethodType.methodType(wrapper, returnType).descriptorString(), false));
+        }
+        code.u1(ARETURN);
+        return Math.max(Math.max(stack, depth), size(returnType));
+    }
+
+    private void code(Buffer body, int access, String name, String descriptor, int stack, int locals, Buffer code, Buffer frames) {
+        byte[] bytes = code.toByteArray();
+        byte[] table = frames == null ? new byte[0] : frames.toByteArray();
+        body.u2(access).u2(utf8(name)).u2(utf8(descriptor)).u2(1)
+                .u2(utf8("Code")).u4(12 + bytes.length + (frames == null ? 0 : 6 + table.length)).u2(stack).u2(locals)
+                .u4(bytes.length).bytes(bytes).u2(0).u2(frames == null ? 0 : 1);
+        if (frames != null) body.u2(utf8("StackMapTable")).u4(table.length).bytes(table);
+    }
+
+    private static int load(Buffer code, Class<?> type, int slot) {
+        int opcode = type == long.class ? LLOAD : type == float.class ? FLOAD : type == double.class ? DLOAD : type.isPrimitive() ? ILOAD : ALOAD;
+        if (slot > 255) code.u1(WIDE).u1(opcode).u2(slot);
+        else code.u1(opcode).u1(slot);
+        return slot + size(type);
+    }
+
+    private static int size(Class<?> type) {
+        return type == void.class ? 0 : type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private static int size(Class<?>[] types) {
+        int size = 0;
+        for (Class<?> type : types) size += size(type);
+        return size;
+    }
+
+    private static Class<?> wrapper(Class<?> primitive) {
+        return MethodType.methodType(primitive).wrap().returnType();
+    }
+
+    private static int returnOpcode(Class<?> type) {
+        return type == long.class ? LRETURN : type == float.class ? FRETURN : type == double.class ? DRETURN : IRETURN;
+    }
+
+    private static void push(Buffer code, int value) {
+        if (value <= 5) code.u1(ICONST_0 + value);
+        else if (value <= Byte.MAX_VALUE) code.u1(BIPUSH).u1(value);
+        else code.u1(SIPUSH).u2(value);
+    }
+
+    private static String internal(Class<?> type) {
+        return type.isArray() ? type.descriptorString() : type.getName().replace('.', '/');
+    }
+
+    private int utf8(String value) {
+        return constant(CONSTANT_UTF8 + value, () -> pool.u1(CONSTANT_UTF8).utf(value));
+    }
+
+    private int type(String internal) {
+        int name = utf8(internal);
+        return constant(CONSTANT_CLASS + internal, () -> pool.u1(CONSTANT_CLASS).u2(name));
+    }
+
+    private int field(String owner, String name, String descriptor) {
+        int type = type(owner), member = nameAndType(name, descriptor);
+        return constant(CONSTANT_FIELDREF + owner + "." + name + ":" + descriptor, () -> pool.u1(CONSTANT_FIELDREF).u2(type).u2(member));
+    }
+
+    private int method(String owner, String name, String descriptor, boolean isInterface) {
+        int type = type(owner), member = nameAndType(name, descriptor);
+        int tag = isInterface ? CONSTANT_INTERFACE_METHODREF : CONSTANT_METHODREF;
+        return constant(tag + owner + "." + name + descriptor, () -> pool.u1(tag).u2(type).u2(member));
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int member = utf8(name), type = utf8(descriptor);
+        return constant(CONSTANT_NAME_AND_TYPE + name + ":" + descriptor, () -> pool.u1(CONSTANT_NAME_AND_TYPE).u2(member).u2(type));
+    }
+
+    private int constant(String key, Runnable write) {
+        Integer index = constants.get(key);
+        if (index != null) return index;
+        write.run();
+        constants.put(key, count);
+        return count++;
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer u1(int value) {
+            write(value);
+            return this;
+        }
+
+        Buffer u2(int value) {
+            return u1(value >>> 8).u1(value);
+        }
+
+        Buffer u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        Buffer bytes(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        Buffer utf(String value) {
+            Buffer encoded = new Buffer();
+            for (char c : value.toCharArray()) {
+                if (c != 0 && c < 0x80) encoded.u1(c);
+                else if (c < 0x800) encoded.u1(0xc0 | c >> 6).u1(0x80 | c & 0x3f);
+                else encoded.u1(0xe0 | c >> 12).u1(0x80 | c >> 6 & 0x3f).u1(0x80 | c & 0x3f);
+            }
+            return u2(encoded.size()).bytes(encoded.toByteArray());
+        }
+    }
+}
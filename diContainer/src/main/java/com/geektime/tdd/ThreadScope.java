@@ -0,0 +1,18 @@
+package com.geektime.tdd;
+
+public final class ThreadScope {
+    private static final ThreadLocal<ScopedInstances> INSTANCES = ThreadLocal.withInitial(ScopedInstances::new);
+
+    private ThreadScope() {
+    }
+
+    static ScopedInstances instances() {
+        return INSTANCES.get();
+    }
+
+    public static void release() {
+        ScopedInstances instances = INSTANCES.get();
+        INSTANCES.remove();
+        instances.close();
+    }
+}
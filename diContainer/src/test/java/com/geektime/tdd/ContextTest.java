@@ -1,9 +1,13 @@
 package com.geektime.tdd;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -12,7 +16,13 @@ import org.junit.jupiter.params.provider.MethodSource;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -116,6 +126,25 @@ class ContextTest {
             assertSame(instance, provider.get());
         }
 
+        @Test
+        void should_reuse_provider_instance_for_component() {
+            config.instance(Dependency.class, dependency);
+            config.component(ProviderInjected.class, ProviderInjected.class);
+            Context context = config.getContext();
+            ComponentRef<Provider<Dependency>> ref = new ComponentRef<>() {
+            };
+
+            Optional<Provider<Dependency>> provider = context.get(ref);
+            assertSame(provider, context.get(ref));
+            assertSame(provider.get(), context.get(ComponentRef.of(ProviderInjected.class)).get().dependency);
+            assertSame(dependency, provider.get().get());
+        }
+
+        static class ProviderInjected {
+            @Inject
+            Provider<Dependency> dependency;
+        }
+
         @Test
         void should_not_retrieve_bind_type_as_unsupported_container() {
             config.instance(TestComponent.class, instance);
@@ -125,6 +154,26 @@ class ContextTest {
             }).isPresent());
         }
 
+        @Test
+        void should_retrieve_bind_type_without_optional() {
+            config.instance(TestComponent.class, instance);
+            config.instance(Dependency.class, dependency);
+            Context context = config.getContext();
+
+            assertSame(instance, context.require(ComponentRef.of(TestComponent.class)));
+            assertSame(instance, context.getOrNull(ComponentRef.of(TestComponent.class)));
+            assertArrayEquals(new Object[]{dependency, instance},
+                    context.resolveAll(new ComponentRef<?>[]{ComponentRef.of(Dependency.class), ComponentRef.of(TestComponent.class)}));
+        }
+
+        @Test
+        void should_return_null_or_throw_exception_if_component_not_defined_without_optional() {
+            Context context = config.getContext();
+
+            assertNull(context.getOrNull(ComponentRef.of(TestComponent.class)));
+            assertThrows(NoSuchElementException.class, () -> context.require(ComponentRef.of(TestComponent.class)));
+        }
+
         @Test
         void should_throw_exception_if_bind_duplicate_component_by_instance() {
             config.instance(TestComponent.class, instance);
@@ -163,6 +212,40 @@ class ContextTest {
                 assertSame(dependency, skywalker.dependency());
             }
 
+            static class AnnotatedQualifier {
+                @jakarta.inject.Named("ChosenOne")
+                TestComponent component;
+            }
+
+            @Test
+            void should_retrieve_component_bound_with_annotation_proxy_by_equal_literal() throws NoSuchFieldException {
+                jakarta.inject.Named named = AnnotatedQualifier.class.getDeclaredField("component").getAnnotation(jakarta.inject.Named.class);
+                config.instance(TestComponent.class, instance, named);
+
+                assertSame(instance, config.getContext().get(ComponentRef.of(TestComponent.class, new NamedLiteral("ChosenOne"))).get());
+                assertSame(new Component(TestComponent.class, named).qualifier(), new Component(TestComponent.class, new NamedLiteral("ChosenOne")).qualifier());
+            }
+
+            @Test
+            void should_not_retain_canonical_qualifier_no_longer_referenced() {
+                WeakReference<Annotation> qualifier = new WeakReference<>(new Component(TestComponent.class, new NamedLiteral("Transient")).qualifier());
+                for (int i = 0; i < 10 && qualifier.get() != null; i++) System.gc();
+                assertNull(qualifier.get());
+            }
+
+            @Test
+            void should_share_canonical_qualifier_between_concurrently_created_components() throws Exception {
+                ExecutorService executor = Executors.newFixedThreadPool(4);
+                try {
+                    List<Callable<Annotation>> tasks = Collections.nCopies(64, () -> new Component(TestComponent.class, new NamedLiteral("Concurrent")).qualifier());
+                    Set<Annotation> canonical = Collections.newSetFromMap(new IdentityHashMap<>());
+                    for (Future<Annotation> qualifier : executor.invokeAll(tasks)) canonical.add(qualifier.get());
+                    assertEquals(1, canonical.size());
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
             @Test
             void should_retrieve_bind_type_as_provider() {
                 config.instance(TestComponent.class, instance, new NamedLiteral("ChosenOne"), new SkywalkerLiteral());
@@ -232,6 +315,43 @@ class ContextTest {
         static class SingletonAnnotated implements TestComponent {
         }
 
+        @Singleton
+        static class SlowSingleton implements TestComponent {
+            static final AtomicInteger created = new AtomicInteger();
+
+            public SlowSingleton() throws InterruptedException {
+                created.incrementAndGet();
+                Thread.sleep(50);
+            }
+        }
+
+        @Test
+        void should_create_singleton_only_once_under_concurrent_first_access() throws Exception {
+            SlowSingleton.created.set(0);
+            config.component(TestComponent.class, SlowSingleton.class);
+            Context context = config.getContext();
+
+            int threads = 200;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<TestComponent>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++)
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return context.get(ComponentRef.of(TestComponent.class)).get();
+                    }));
+                start.countDown();
+
+                Set<TestComponent> components = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Future<TestComponent> result : results) components.add(result.get(10, TimeUnit.SECONDS));
+                assertEquals(1, components.size());
+                assertEquals(1, SlowSingleton.created.get());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
         @Test
         void should_retrieve_scope_annotation_from_component() {
             config.component(TestComponent.class, SingletonAnnotated.class);
@@ -241,62 +361,1406 @@ class ContextTest {
         }
 
         @Test
-        void should_throw_exception_if_multi_scope_provided() {
-            ContextConfig.ContextConfigException exception = assertThrows(ContextConfig.ContextConfigException.class, () -> config.component(TestComponent.class, NotSingleton.class, new SingletonLiteral(), new PooledLiteral()));
-            assertEquals("Unqualified annotations: SingletonLiteral[] , PooledLiteral[] of class com.geektime.tdd.ContextTest$WithScope$NotSingleton",
-                    exception.getMessage());
+        void should_keep_singleton_per_context() {
+            config.instance(Dependency.class, dependency);
+            config.component(AnotherDependency.class, DependentSingleton.class);
+            config.component(TestComponent.class, SingletonAnnotated.class);
+            Context first = config.getContext();
+            DependentSingleton singleton = (DependentSingleton) first.get(ComponentRef.of(AnotherDependency.class)).get();
+
+            Context second = config.getContext();
+            DependentSingleton another = (DependentSingleton) second.get(ComponentRef.of(AnotherDependency.class)).get();
+
+            assertNotSame(singleton, another);
+            assertSame(singleton, first.get(ComponentRef.of(AnotherDependency.class)).get());
+            assertSame(first.get(ComponentRef.of(TestComponent.class)).get(), singleton.component);
+            assertSame(second.get(ComponentRef.of(TestComponent.class)).get(), another.component);
+        }
+
+        @Singleton
+        static class ConcurrentSingleton implements TestComponent {
+            static CountDownLatch constructing;
+
+            public ConcurrentSingleton() throws InterruptedException {
+                constructing.countDown();
+                if (!constructing.await(10, TimeUnit.SECONDS)) throw new IllegalStateException();
+            }
+        }
+
+        @Singleton
+        static class AnotherConcurrentSingleton implements Dependency {
+            public AnotherConcurrentSingleton() throws InterruptedException {
+                ConcurrentSingleton.constructing.countDown();
+                if (!ConcurrentSingleton.constructing.await(10, TimeUnit.SECONDS)) throw new IllegalStateException();
+            }
+        }
+
+        @Singleton
+        static class DependentSingleton implements AnotherDependency {
+            final TestComponent component;
+            final Dependency dependency;
+
+            @Inject
+            public DependentSingleton(TestComponent component, Dependency dependency) {
+                this.component = component;
+                this.dependency = dependency;
+            }
+        }
+
+        @Test
+        void should_initialize_independent_singletons_concurrently_if_executor_given() {
+            ConcurrentSingleton.constructing = new CountDownLatch(2);
+            config.component(TestComponent.class, ConcurrentSingleton.class);
+            config.component(Dependency.class, AnotherConcurrentSingleton.class);
+            config.component(AnotherDependency.class, DependentSingleton.class);
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                Context context = config.getContext(executor);
+
+                assertEquals(0, ConcurrentSingleton.constructing.getCount());
+                DependentSingleton dependent = (DependentSingleton) context.get(ComponentRef.of(AnotherDependency.class)).get();
+                assertSame(context.get(ComponentRef.of(TestComponent.class)).get(), dependent.component);
+                assertSame(context.get(ComponentRef.of(Dependency.class)).get(), dependent.dependency);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void should_throw_exception_if_multi_scope_provided() {
+            ContextConfig.ContextConfigException exception = assertThrows(ContextConfig.ContextConfigException.class, () -> config.component(TestComponent.class, NotSingleton.class, new SingletonLiteral(), new PooledLiteral()));
+            assertEquals("Unqualified annotations: SingletonLiteral[] , PooledLiteral[] of class com.geektime.tdd.ContextTest$WithScope$NotSingleton",
+                    exception.getMessage());
+        }
+
+        @Singleton
+        @Pooled
+        static class MultiScopeAnnotation implements TestComponent {
+
+        }
+
+        @Test
+        void should_throw_exception_if_multi_scope_annotated() {
+            ContextConfig.ContextConfigException exception = assertThrows(ContextConfig.ContextConfigException.class, () -> config.component(TestComponent.class, MultiScopeAnnotation.class));
+            assertEquals("Unqualified annotations: @jakarta.inject.Singleton() , @com.geektime.tdd.Pooled() of class com.geektime.tdd.ContextTest$WithScope$MultiScopeAnnotation",
+                    exception.getMessage());
+        }
+
+
+        @Test
+        void should_throw_exception_if_scope_undefined() {
+            ContextConfig.ContextConfigException exception = assertThrows(ContextConfig.ContextConfigException.class, () -> config.component(TestComponent.class, NotSingleton.class, new PooledLiteral()));
+            assertEquals("Unknown scope: interface com.geektime.tdd.Pooled",
+                    exception.getMessage());
+        }
+
+        @Nested
+        class WithQualifier {
+
+            @Test
+            void should_not_singleton_scope_by_default() {
+                config.component(TestComponent.class, NotSingleton.class, new SkywalkerLiteral());
+                Context context = config.getContext();
+                assertNotSame(context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get(), context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get());
+            }
+
+
+            @Test
+            void should_bind_component_as_singleton_scoped() {
+                config.component(TestComponent.class, NotSingleton.class, new SingletonLiteral(), new SkywalkerLiteral());
+                Context context = config.getContext();
+                assertSame(context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get(), context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get());
+            }
+
+            @Test
+            void should_retrieve_scope_annotation_from_component() {
+                config.component(TestComponent.class, SingletonAnnotated.class, new SkywalkerLiteral());
+                Context context = config.getContext();
+                assertSame(context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get(), context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get());
+
+            }
+
+
+        }
+
+
+        @Nested
+        class UnitOfWorkScope {
+            @ThreadScoped
+            static class ThreadComponent implements TestComponent, AutoCloseable {
+                boolean closed;
+
+                @Override
+                public void close() {
+                    closed = true;
+                }
+            }
+
+            @RequestScoped
+            static class RequestComponent implements TestComponent, AutoCloseable {
+                static final List<Object> released = new CopyOnWriteArrayList<>();
+                @Inject
+                RequestDependency dependency;
+
+                @Override
+                public void close() {
+                    released.add(this);
+                }
+            }
+
+            @RequestScoped
+            static class RequestDependency implements AutoCloseable {
+                @Override
+                public void close() {
+                    RequestComponent.released.add(this);
+                }
+            }
+
+            @BeforeEach
+            void setUp() {
+                RequestComponent.released.clear();
+            }
+
+            @Test
+            void should_share_thread_scoped_instance_within_thread() throws Exception {
+                config.component(TestComponent.class, ThreadComponent.class);
+                Context context = config.getContext();
+                ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+
+                TestComponent component = context.get(ref).get();
+                assertSame(component, context.get(ref).get());
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try {
+                    assertNotSame(component, executor.submit(() -> context.get(ref).get()).get());
+                } finally {
+                    executor.shutdownNow();
+                }
+
+                ThreadScope.release();
+                assertTrue(((ThreadComponent) component).closed);
+                assertNotSame(component, context.get(ref).get());
+                ThreadScope.release();
+            }
+
+            @Test
+            void should_share_request_scoped_instance_within_request_and_release_at_end() {
+                config.component(TestComponent.class, RequestComponent.class);
+                config.component(RequestDependency.class, RequestDependency.class);
+                Context context = config.getContext();
+                ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+
+                TestComponent first;
+                try (RequestScope scope = RequestScope.open()) {
+                    first = context.get(ref).get();
+                    assertSame(first, context.get(ref).get());
+                    assertSame(first, scope.call(() -> context.get(ref).get()));
+                }
+                assertEquals(List.of(first, ((RequestComponent) first).dependency), RequestComponent.released);
+
+                try (RequestScope scope = RequestScope.open()) {
+                    assertNotSame(first, context.get(ref).get());
+                }
+                assertTrue(RequestScope.current().isEmpty());
+            }
+
+            @Test
+            void should_propagate_request_scope_to_other_thread_by_handle() throws Exception {
+                config.component(TestComponent.class, RequestComponent.class);
+                config.component(RequestDependency.class, RequestDependency.class);
+                Context context = config.getContext();
+                ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try (RequestScope scope = RequestScope.open()) {
+                    TestComponent component = context.get(ref).get();
+                    assertSame(component, executor.submit(() -> scope.call(() -> context.get(ref).get())).get());
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            @Test
+            void should_throw_exception_if_request_scope_not_active() {
+                config.component(TestComponent.class, RequestComponent.class);
+                config.component(RequestDependency.class, RequestDependency.class);
+                Context context = config.getContext();
+
+                assertThrows(ScopedInstances.ScopeException.class, () -> context.get(ComponentRef.of(TestComponent.class)));
+            }
+        }
+
+        @Nested
+        class PooledScope {
+            static class Codec implements TestComponent {
+                static final AtomicInteger created = new AtomicInteger();
+                static final AtomicInteger destroyed = new AtomicInteger();
+
+                public Codec() {
+                    created.incrementAndGet();
+                }
+
+                @PreDestroy
+                void destroy() {
+                    destroyed.incrementAndGet();
+                }
+            }
+
+            @BeforeEach
+            void setUp() {
+                Codec.created.set(0);
+                Codec.destroyed.set(0);
+            }
+
+            @Test
+            void should_borrow_once_per_scope_and_reuse_returned_instance() {
+                config.component(TestComponent.class, Codec.class, new PoolScopedLiteral(2));
+                Context context = config.getContext();
+                ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+
+                TestComponent first;
+                try (PoolScope scope = PoolScope.open()) {
+                    first = context.get(ref).get();
+                    assertSame(first, context.get(ref).get());
+                }
+                try (PoolScope scope = PoolScope.open()) {
+                    assertSame(first, context.get(ref).get());
+                }
+
+                PoolMetrics metrics = config.poolMetrics(new Component(TestComponent.class, null)).get();
+                assertEquals(new PoolMetrics(2, 1, 1, 1, 1, 0, 0), metrics);
+                assertEquals(0.5, metrics.hitRate());
+            }
+
+            @Test
+            void should_bound_pool_size_and_wait_for_returned_instance() throws Exception {
+                config.component(TestComponent.class, Codec.class, new PoolScopedLiteral(2));
+                Context context = config.getContext();
+
+                ExecutorService executor = Executors.newFixedThreadPool(8);
+                try {
+                    List<Callable<Object>> tasks = Collections.nCopies(32, () -> {
+                        try (PoolScope scope = PoolScope.open()) {
+                            context.get(ComponentRef.of(TestComponent.class)).get();
+                            Thread.sleep(2);
+                        }
+                        return null;
+                    });
+                    for (Future<Object> result : executor.invokeAll(tasks)) result.get();
+                } finally {
+                    executor.shutdownNow();
+                }
+
+                PoolMetrics metrics = config.poolMetrics(new Component(TestComponent.class, null)).get();
+                assertEquals(2, Codec.created.get());
+                assertEquals(2, metrics.idle());
+                assertEquals(32, metrics.hits() + metrics.misses());
+                assertTrue(metrics.waits() > 0);
+                assertTrue(metrics.waitNanos() > 0);
+            }
+
+            @Test
+            void should_throw_exception_if_nested_scope_needs_instance_held_by_enclosing_scope() {
+                config.component(TestComponent.class, Codec.class, new PoolScopedLiteral(1));
+                Context context = config.getContext();
+                ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+
+                try (PoolScope outer = PoolScope.open()) {
+                    context.get(ref).get();
+                    try (PoolScope inner = PoolScope.open()) {
+                        assertThrows(ScopedInstances.ScopeException.class, () -> context.get(ref));
+                    }
+                }
+                try (PoolScope scope = PoolScope.open()) {
+                    assertTrue(context.get(ref).isPresent());
+                }
+            }
+
+            @Test
+            void should_throw_exception_if_no_instance_released_within_timeout() throws Exception {
+                config.component(TestComponent.class, Codec.class, new PoolScopedLiteral(1, 50));
+                Context context = config.getContext();
+                ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try (PoolScope scope = PoolScope.open()) {
+                    context.get(ref).get();
+                    Future<Object> waiting = executor.submit(() -> {
+                        try (PoolScope other = PoolScope.open()) {
+                            return context.get(ref);
+                        }
+                    });
+                    ExecutionException exception = assertThrows(ExecutionException.class, () -> waiting.get(10, TimeUnit.SECONDS));
+                    assertInstanceOf(ScopedInstances.ScopeException.class, exception.getCause());
+                } finally {
+                    executor.shutdownNow();
+                }
+                assertEquals(1, config.poolMetrics(new Component(TestComponent.class, null)).get().waits());
+            }
+
+            @Test
+            void should_bound_pool_size_across_contexts_of_same_config() throws Exception {
+                config.component(TestComponent.class, Codec.class, new PoolScopedLiteral(1, 50));
+                Context context = config.getContext();
+                Context another = config.getContext();
+                ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try (PoolScope scope = PoolScope.open()) {
+                    context.get(ref).get();
+                    Future<Object> waiting = executor.submit(() -> {
+                        try (PoolScope other = PoolScope.open()) {
+                            return another.get(ref);
+                        }
+                    });
+                    ExecutionException exception = assertThrows(ExecutionException.class, () -> waiting.get(10, TimeUnit.SECONDS));
+                    assertInstanceOf(ScopedInstances.ScopeException.class, exception.getCause());
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            @Test
+            void should_destroy_idle_and_returned_instances_when_context_closed() {
+                config.component(TestComponent.class, Codec.class, new PoolScopedLiteral(2));
+                Context context = config.getContext();
+                ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+
+                try (PoolScope scope = PoolScope.open()) {
+                    context.get(ref).get();
+                }
+                try (PoolScope scope = PoolScope.open()) {
+                    context.get(ref).get();
+                    context.close();
+                    assertEquals(0, Codec.destroyed.get());
+                }
+
+                assertEquals(1, Codec.destroyed.get());
+                assertEquals(0, config.poolMetrics(new Component(TestComponent.class, null)).get().idle());
+            }
+
+            @Test
+            void should_throw_exception_if_pool_scope_not_active() {
+                config.component(TestComponent.class, Codec.class, new PoolScopedLiteral(2));
+
+                assertThrows(ScopedInstances.ScopeException.class, () -> config.getContext().get(ComponentRef.of(TestComponent.class)));
+            }
+        }
+
+        @Nested
+        class CachedScope {
+            static class Table implements TestComponent {
+            }
+
+            static class DisposableTable implements TestComponent {
+                boolean destroyed;
+
+                @PreDestroy
+                void destroy() {
+                    destroyed = true;
+                }
+            }
+
+            private final ComponentRef<TestComponent> a = ComponentRef.of(TestComponent.class, new NamedLiteral("a"));
+            private final ComponentRef<TestComponent> b = ComponentRef.of(TestComponent.class, new NamedLiteral("b"));
+            private final ComponentRef<TestComponent> c = ComponentRef.of(TestComponent.class, new NamedLiteral("c"));
+
+            @Test
+            void should_reuse_cached_instance() {
+                config.component(TestComponent.class, Table.class, new NamedLiteral("a"), new CachedLiteral(1, 0, false));
+                Context context = config.getContext();
+
+                assertSame(context.get(a).get(), context.get(a).get());
+                assertEquals(new CacheMetrics(ComponentCache.DEFAULT_CAPACITY, 1, 1, 1, 1, 0), config.cacheMetrics());
+            }
+
+            @Test
+            void should_evict_least_recently_used_instance_and_rebuild_on_demand() {
+                config.cacheCapacity(2);
+                config.component(TestComponent.class, Table.class, new NamedLiteral("a"), new CachedLiteral(1, 0, false));
+                config.component(TestComponent.class, Table.class, new NamedLiteral("b"), new CachedLiteral(1, 0, false));
+                config.component(TestComponent.class, Table.class, new NamedLiteral("c"), new CachedLiteral(1, 0, false));
+                Context context = config.getContext();
+
+                TestComponent first = context.get(a).get();
+                TestComponent second = context.get(b).get();
+                assertSame(first, context.get(a).get());
+                context.get(c).get();
+
+                assertSame(first, context.get(a).get());
+                assertNotSame(second, context.get(b).get());
+                assertEquals(2, config.cacheMetrics().evictions());
+                assertEquals(2, config.cacheMetrics().size());
+            }
+
+            @Test
+            void should_bound_cache_by_weight() {
+                config.cacheCapacity(4);
+                config.component(TestComponent.class, Table.class, new NamedLiteral("a"), new CachedLiteral(3, 0, false));
+                config.component(TestComponent.class, Table.class, new NamedLiteral("b"), new CachedLiteral(3, 0, false));
+                Context context = config.getContext();
+
+                TestComponent first = context.get(a).get();
+                context.get(b).get();
+
+                assertNotSame(first, context.get(a).get());
+                assertEquals(3, config.cacheMetrics().weight());
+            }
+
+            @Test
+            void should_release_and_destroy_cached_instances_when_context_closed() {
+                config.component(TestComponent.class, DisposableTable.class, new NamedLiteral("a"), new CachedLiteral(1, 0, false));
+                List<DisposableTable> tables = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    Context context = config.getContext();
+                    tables.add((DisposableTable) context.get(a).get());
+                    context.close();
+                }
+
+                assertTrue(tables.stream().allMatch(t -> t.destroyed));
+                assertEquals(new CacheMetrics(ComponentCache.DEFAULT_CAPACITY, 0, 0, 0, 5, 0), config.cacheMetrics());
+            }
+
+            @Test
+            void should_rebuild_expired_instance() throws InterruptedException {
+                config.component(TestComponent.class, Table.class, new NamedLiteral("a"), new CachedLiteral(1, 1, true));
+                Context context = config.getContext();
+
+                TestComponent first = context.get(a).get();
+                Thread.sleep(5);
+
+                assertNotSame(first, context.get(a).get());
+                assertEquals(1, config.cacheMetrics().evictions());
+            }
+        }
+    }
+
+    @Nested
+    class ChildContextTest {
+        private Context parent;
+
+        @BeforeEach
+        void setUp() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, SharedSingleton.class);
+            parent = config.getContext();
+        }
+
+        @Test
+        void should_share_parent_singletons() {
+            Context child = new ContextConfig(parent).getContext();
+
+            assertSame(parent.get(ComponentRef.of(TestComponent.class)).get(), child.get(ComponentRef.of(TestComponent.class)).get());
+        }
+
+        @Test
+        void should_override_parent_binding_only_in_child() {
+            Dependency override = new Dependency() {
+            };
+            ContextConfig childConfig = new ContextConfig(parent);
+            childConfig.instance(Dependency.class, override);
+            childConfig.component(AnotherDependency.class, ChildComponent.class);
+            Context child = childConfig.getContext();
+
+            assertSame(override, child.get(ComponentRef.of(Dependency.class)).get());
+            assertSame(dependency, parent.get(ComponentRef.of(Dependency.class)).get());
+            ChildComponent component = (ChildComponent) child.get(ComponentRef.of(AnotherDependency.class)).get();
+            assertSame(override, component.dependency);
+            assertSame(parent.get(ComponentRef.of(TestComponent.class)).get(), component.component);
+            assertSame(dependency, component.component.dependency());
+            assertTrue(parent.get(ComponentRef.of(AnotherDependency.class)).isEmpty());
+        }
+
+        @Test
+        void should_resolve_parent_provider_from_child() {
+            Context child = new ContextConfig(parent).getContext();
+
+            Provider<TestComponent> provider = child.get(new ComponentRef<Provider<TestComponent>>() {
+            }).get();
+            assertSame(parent.get(ComponentRef.of(TestComponent.class)).get(), provider.get());
+        }
+
+        @Test
+        void should_check_only_child_bindings_against_parent() {
+            ContextConfig childConfig = new ContextConfig(parent);
+            childConfig.component(AnotherDependency.class, MissingInParent.class);
+
+            ContextConfig.ContextConfigError error = assertThrows(ContextConfig.ContextConfigError.class, childConfig::getContext);
+            assertTrue(error.getMessage().contains(String.class.getName()));
+        }
+
+        @Test
+        void should_eagerly_initialize_child_singletons_depending_on_parent() {
+            ContextConfig childConfig = new ContextConfig(parent);
+            childConfig.component(AnotherDependency.class, ChildComponent.class, new SingletonLiteral());
+
+            Context child = childConfig.getContext(Runnable::run);
+            assertSame(child.get(ComponentRef.of(AnotherDependency.class)).get(), child.get(ComponentRef.of(AnotherDependency.class)).get());
+        }
+
+        @Test
+        void should_resolve_inherited_components_against_parent_bindings() {
+            ContextConfig parentConfig = new ContextConfig();
+            parentConfig.instance(Dependency.class, dependency);
+            parentConfig.factories(List.of(new ComponentFactory<FactoryMade>() {
+                @Override
+                public Class<FactoryMade> type() {
+                    return FactoryMade.class;
+                }
+
+                @Override
+                public List<ComponentRef<?>> dependencies() {
+                    return List.of(ComponentRef.of(Dependency.class));
+                }
+
+                @Override
+                public FactoryMade create(Context context) {
+                    return new FactoryMade(context.require(ComponentRef.of(Dependency.class)));
+                }
+            }));
+            parentConfig.component(TestComponent.class, FactoryMade.class);
+            ContextConfig childConfig = new ContextConfig(parentConfig.getContext(), InjectionEngine.REFLECTION);
+            childConfig.instance(Dependency.class, new Dependency() {
+            });
+            childConfig.component(AnotherDependency.class, ChildComponent.class);
+            Context child = childConfig.getContext();
+
+            assertSame(dependency, child.get(ComponentRef.of(TestComponent.class)).get().dependency());
+            assertSame(dependency, ((ChildComponent) child.get(ComponentRef.of(AnotherDependency.class)).get()).component.dependency());
+        }
+
+        record FactoryMade(Dependency dependency) implements TestComponent {
+        }
+
+        @Test
+        void should_not_accept_foreign_parent_context() {
+            assertThrows(IllegalArgumentException.class, () -> new ContextConfig(new Context() {
+                @Override
+                public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+                    return Optional.empty();
+                }
+            }));
+        }
+
+        @Singleton
+        static class SharedSingleton implements TestComponent {
+            @Inject
+            Dependency dependency;
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        static class ChildComponent implements AnotherDependency {
+            @Inject
+            Dependency dependency;
+            @Inject
+            TestComponent component;
+        }
+
+        static class MissingInParent implements AnotherDependency {
+            @Inject
+            String missing;
+        }
+    }
+
+    @Nested
+    class LiveContextTest {
+        @Singleton
+        static class DependentSingleton implements TestComponent {
+            @Inject
+            Dependency dependency;
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        @Singleton
+        static class IndependentSingleton implements AnotherDependency {
+        }
+
+        static class CyclicDependency implements Dependency {
+            @Inject
+            TestComponent component;
+        }
+
+        static class MissingDependency implements Dependency {
+            @Inject
+            String missing;
+        }
+
+        @Singleton
+        static class TrackedSingleton {
+            @Inject
+            Dependency dependency;
+            boolean destroyed;
+
+            @PreDestroy
+            void destroy() {
+                destroyed = true;
+            }
+        }
+
+        static class StaticHolder {
+            @Inject
+            static Dependency dependency;
+        }
+
+        private LiveContext context;
+
+        @BeforeEach
+        void setUp() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, DependentSingleton.class);
+            config.component(AnotherDependency.class, IndependentSingleton.class);
+            context = config.getLiveContext();
+        }
+
+        @Test
+        void should_publish_rebound_component_and_rebuild_dependents() {
+            TestComponent component = context.get(ComponentRef.of(TestComponent.class)).get();
+            AnotherDependency independent = context.get(ComponentRef.of(AnotherDependency.class)).get();
+            Dependency updated = new Dependency() {
+            };
+
+            context.update(c -> c.instance(Dependency.class, updated));
+
+            assertSame(updated, context.get(ComponentRef.of(Dependency.class)).get());
+            TestComponent rebuilt = context.get(ComponentRef.of(TestComponent.class)).get();
+            assertNotSame(component, rebuilt);
+            assertSame(updated, rebuilt.dependency());
+            assertSame(dependency, component.dependency());
+            assertSame(independent, context.get(ComponentRef.of(AnotherDependency.class)).get());
+        }
+
+        @Test
+        void should_add_new_component_at_runtime() {
+            context.update(c -> c.instance(String.class, "added"));
+
+            assertEquals("added", context.get(ComponentRef.of(String.class)).get());
+        }
+
+        @Test
+        void should_keep_snapshot_if_update_introduces_cycle() {
+            TestComponent component = context.get(ComponentRef.of(TestComponent.class)).get();
+
+            assertThrows(ContextConfig.ContextConfigError.class, () -> context.update(c -> c.component(Dependency.class, CyclicDependency.class)));
+
+            assertSame(dependency, context.get(ComponentRef.of(Dependency.class)).get());
+            assertSame(component, context.get(ComponentRef.of(TestComponent.class)).get());
+        }
+
+        @Test
+        void should_keep_snapshot_if_update_is_unsatisfied() {
+            assertThrows(ContextConfig.ContextConfigError.class, () -> context.update(c -> c.component(Dependency.class, MissingDependency.class)));
+
+            assertSame(dependency, context.get(ComponentRef.of(Dependency.class)).get());
+        }
+
+        @Test
+        void should_close_superseded_singletons_after_update() {
+            config.component(TrackedSingleton.class, TrackedSingleton.class);
+            LiveContext context = config.getLiveContext();
+            TrackedSingleton superseded = context.get(ComponentRef.of(TrackedSingleton.class)).get();
+
+            context.update(c -> c.instance(Dependency.class, new Dependency() {
+            }));
+
+            assertTrue(superseded.destroyed);
+            assertFalse(context.get(ComponentRef.of(TrackedSingleton.class)).get().destroyed);
+        }
+
+        @Test
+        void should_inject_static_members_of_rebuilt_components() {
+            config.from(new Config() {
+                @Config.Static
+                StaticHolder holder;
+            });
+            LiveContext context = config.getLiveContext();
+            assertSame(dependency, StaticHolder.dependency);
+            Dependency updated = new Dependency() {
+            };
+
+            context.update(c -> c.instance(Dependency.class, updated));
+
+            assertSame(updated, StaticHolder.dependency);
+        }
+
+        @Test
+        void should_append_element_contributed_by_update() {
+            config.element(TestComponent.class, MultibindingTest.FirstHandler.class);
+            config.component(MultibindingTest.Dispatcher.class, MultibindingTest.Dispatcher.class);
+            LiveContext context = config.getLiveContext();
+
+            context.update(c -> c.element(TestComponent.class, MultibindingTest.SecondHandler.class));
+
+            MultibindingTest.Dispatcher dispatcher = context.get(ComponentRef.of(MultibindingTest.Dispatcher.class)).get();
+            assertEquals(List.of(MultibindingTest.FirstHandler.class, MultibindingTest.SecondHandler.class),
+                    dispatcher.handlers.stream().map(Object::getClass).toList());
+        }
+
+        @Test
+        void should_replace_entry_with_same_key_contributed_by_update() {
+            config.entry(TestComponent.class, "first", MultibindingTest.FirstHandler.class);
+            config.entry(TestComponent.class, "second", MultibindingTest.FirstHandler.class);
+            LiveContext context = config.getLiveContext();
+
+            context.update(c -> c.entry(TestComponent.class, "second", MultibindingTest.SecondHandler.class));
+
+            Map<String, TestComponent> handlers = context.get(new ComponentRef<Map<String, TestComponent>>() {
+            }).get();
+            assertEquals(List.of("first", "second"), List.copyOf(handlers.keySet()));
+            assertInstanceOf(MultibindingTest.SecondHandler.class, handlers.get("second"));
+        }
+
+        @Test
+        void should_serve_consistent_snapshots_to_readers_during_updates() throws Exception {
+            Dependency[] dependencies = IntStream.range(0, 50).mapToObj(i -> new Dependency() {
+            }).toArray(Dependency[]::new);
+            AtomicBoolean running = new AtomicBoolean(true);
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                List<Future<?>> readers = IntStream.range(0, 3).<Future<?>>mapToObj(i -> executor.submit(() -> {
+                    while (running.get()) {
+                        Dependency current = context.get(ComponentRef.of(TestComponent.class)).get().dependency();
+                        assertTrue(current == dependency || Arrays.asList(dependencies).contains(current));
+                    }
+                })).toList();
+                for (Dependency updated : dependencies) context.update(c -> c.instance(Dependency.class, updated));
+                running.set(false);
+                for (Future<?> reader : readers) reader.get();
+            } finally {
+                executor.shutdownNow();
+            }
+            assertSame(dependencies[dependencies.length - 1], context.get(ComponentRef.of(TestComponent.class)).get().dependency());
+        }
+    }
+
+    @Nested
+    class MultibindingTest {
+        @Test
+        void should_inject_all_elements_as_list_in_registration_order() {
+            config.instance(Dependency.class, dependency);
+            config.element(TestComponent.class, FirstHandler.class);
+            config.element(TestComponent.class, SecondHandler.class);
+            config.component(Dispatcher.class, Dispatcher.class);
+
+            Dispatcher dispatcher = config.getContext().get(ComponentRef.of(Dispatcher.class)).get();
+            assertEquals(List.of(FirstHandler.class, SecondHandler.class), dispatcher.handlers.stream().map(Object::getClass).toList());
+            assertSame(dependency, dispatcher.handlers.get(0).dependency());
+            assertThrows(UnsupportedOperationException.class, () -> dispatcher.handlers.add(null));
+        }
+
+        @Test
+        void should_share_singleton_element_between_list_and_set() {
+            config.instance(Dependency.class, dependency);
+            config.element(TestComponent.class, FirstHandler.class, new SingletonLiteral());
+            Context context = config.getContext();
+
+            List<TestComponent> list = context.get(new ComponentRef<List<TestComponent>>() {
+            }).get();
+            Set<TestComponent> set = context.get(new ComponentRef<Set<TestComponent>>() {
+            }).get();
+            assertSame(list.get(0), set.iterator().next());
+            assertSame(list, context.get(new ComponentRef<List<TestComponent>>() {
+            }).get());
+        }
+
+        @Test
+        void should_inject_entries_as_map() {
+            config.instance(Dependency.class, dependency);
+            config.entry(TestComponent.class, "first", FirstHandler.class);
+            config.entry(TestComponent.class, "second", SecondHandler.class);
+
+            Map<String, TestComponent> handlers = config.getContext().get(new ComponentRef<Map<String, TestComponent>>() {
+            }).get();
+            assertEquals(List.of("first", "second"), List.copyOf(handlers.keySet()));
+            assertInstanceOf(SecondHandler.class, handlers.get("second"));
+            assertThrows(UnsupportedOperationException.class, () -> handlers.remove("first"));
+        }
+
+        @Test
+        void should_throw_exception_if_entry_key_duplicated() {
+            config.entry(TestComponent.class, "first", FirstHandler.class);
+            assertThrows(ContextConfig.ContextConfigException.class, () -> config.entry(TestComponent.class, "first", SecondHandler.class));
+        }
+
+        @Test
+        void should_keep_entries_unchanged_if_entry_key_duplicated() {
+            config.instance(Dependency.class, dependency);
+            config.entry(TestComponent.class, "first", FirstHandler.class);
+            assertThrows(ContextConfig.ContextConfigException.class, () -> config.entry(TestComponent.class, "first", SecondHandler.class));
+
+            Map<String, TestComponent> handlers = config.getContext().get(new ComponentRef<Map<String, TestComponent>>() {
+            }).get();
+            assertEquals(List.of("first"), List.copyOf(handlers.keySet()));
+            assertInstanceOf(FirstHandler.class, handlers.get("first"));
+        }
+
+        @Test
+        void should_not_resolve_entries_with_non_string_key() {
+            config.instance(Dependency.class, dependency);
+            config.entry(TestComponent.class, "first", FirstHandler.class);
+            config.component(IntegerKeyed.class, IntegerKeyed.class);
+
+            ContextConfig.ContextConfigError error = assertThrows(ContextConfig.ContextConfigError.class, () -> config.getContext());
+            assertTrue(error.getMessage().contains(IntegerKeyed.class.getName()));
+        }
+
+        static class IntegerKeyed {
+            @Inject
+            Map<Integer, TestComponent> handlers;
+        }
+
+        @Test
+        void should_keep_qualified_elements_in_separate_collection() {
+            config.instance(Dependency.class, dependency);
+            config.element(TestComponent.class, FirstHandler.class);
+            config.element(TestComponent.class, SecondHandler.class, new NamedLiteral("named"));
+            config.component(NamedDispatcher.class, NamedDispatcher.class);
+            Context context = config.getContext();
+
+            NamedDispatcher dispatcher = context.get(ComponentRef.of(NamedDispatcher.class)).get();
+            assertEquals(List.of(SecondHandler.class), dispatcher.handlers.stream().map(Object::getClass).toList());
+            assertEquals(1, context.get(new ComponentRef<List<TestComponent>>() {
+            }).get().size());
+        }
+
+        @Test
+        void should_throw_exception_if_element_dependency_not_found() {
+            config.element(TestComponent.class, FirstHandler.class);
+            config.component(Dispatcher.class, Dispatcher.class);
+
+            ContextConfig.ContextConfigError error = assertThrows(ContextConfig.ContextConfigError.class, () -> config.getContext());
+            assertTrue(error.getMessage().contains(Dependency.class.getName()));
+        }
+
+        static class FirstHandler implements TestComponent {
+            @Inject
+            Dependency dependency;
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        static class SecondHandler implements TestComponent {
+        }
+
+        static class Dispatcher {
+            final List<TestComponent> handlers;
+
+            @Inject
+            Dispatcher(List<TestComponent> handlers) {
+                this.handlers = handlers;
+            }
+        }
+
+        static class NamedDispatcher {
+            @Inject
+            @jakarta.inject.Named("named")
+            Set<TestComponent> handlers;
+        }
+    }
+
+    @Nested
+    class LifecycleTest {
+        static final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        @BeforeEach
+        void setUp() {
+            events.clear();
+        }
+
+        @Test
+        void should_call_post_construct_after_injection_from_super_class() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, Service.class);
+
+            Service service = (Service) config.getContext().get(ComponentRef.of(TestComponent.class)).get();
+            assertSame(dependency, service.initialized);
+            assertEquals(List.of("base.init", "service.init"), events);
+        }
+
+        @Test
+        void should_destroy_singletons_in_reverse_topological_order_on_close() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, Service.class, new SingletonLiteral());
+            config.component(AnotherDependency.class, Client.class, new SingletonLiteral());
+            Context context = config.getContext();
+            context.get(ComponentRef.of(AnotherDependency.class)).get();
+            events.clear();
+
+            context.close();
+            context.close();
+
+            assertEquals(List.of("client.destroy", "service.destroy", "base.destroy"), events);
+        }
+
+        @Test
+        void should_not_destroy_instances_not_created_or_not_singleton() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, Service.class);
+            config.component(AnotherDependency.class, Client.class, new SingletonLiteral());
+            Context context = config.getContext();
+            context.get(ComponentRef.of(TestComponent.class)).get();
+            events.clear();
+
+            context.close();
+
+            assertTrue(events.isEmpty());
+        }
+
+        @Test
+        void should_close_independent_singletons_in_parallel() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                config.instance(CyclicBarrier.class, new CyclicBarrier(2));
+                config.component(TestComponent.class, ParallelShutdown.class, new SingletonLiteral());
+                config.component(Dependency.class, AnotherParallelShutdown.class, new SingletonLiteral());
+                Context context = config.getContext(executor);
+
+                assertTimeoutPreemptively(java.time.Duration.ofSeconds(5), context::close);
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        @Test
+        void should_report_destroy_failure_after_closing_other_singletons() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, Service.class, new SingletonLiteral());
+            config.component(AnotherDependency.class, FailingClient.class, new SingletonLiteral());
+            Context context = config.getContext(Runnable::run);
+            events.clear();
+
+            Lifecycle.LifecycleException exception = assertThrows(Lifecycle.LifecycleException.class, context::close);
+            assertEquals(List.of("service.destroy", "base.destroy"), events);
+            assertNotNull(exception.getCause());
+        }
+
+        @Test
+        void should_not_destroy_singletons_of_other_contexts_on_close() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, Service.class, new SingletonLiteral());
+            Context first = config.getContext();
+            Context second = config.getContext();
+            first.get(ComponentRef.of(TestComponent.class)).get();
+            TestComponent service = second.get(ComponentRef.of(TestComponent.class)).get();
+            events.clear();
+
+            first.close();
+
+            assertEquals(List.of("service.destroy", "base.destroy"), events);
+            assertSame(service, second.get(ComponentRef.of(TestComponent.class)).get());
+        }
+
+        @Test
+        void should_throw_exception_if_get_from_closed_context() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, Service.class, new SingletonLiteral());
+            Context context = config.getContext();
+            Provider<TestComponent> provider = context.get(new ComponentRef<Provider<TestComponent>>() {
+            }).get();
+
+            context.close();
+
+            assertThrows(Lifecycle.LifecycleException.class, () -> context.get(ComponentRef.of(TestComponent.class)));
+            assertThrows(Lifecycle.LifecycleException.class, () -> context.getOrNull(ComponentRef.of(TestComponent.class)));
+            assertThrows(Lifecycle.LifecycleException.class, provider::get);
+        }
+
+        @Test
+        void should_destroy_provider_bound_with_multiple_qualifiers_before_its_dependencies() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, Service.class, new NamedLiteral("a"), new NamedLiteral("b"), new SingletonLiteral());
+            config.component(AnotherDependency.class, NamedClient.class, new SingletonLiteral());
+            Context context = config.getContext();
+            context.get(ComponentRef.of(AnotherDependency.class)).get();
+            events.clear();
+
+            context.close();
+
+            assertEquals(List.of("client.destroy", "service.destroy", "base.destroy"), events);
+        }
+
+        @Test
+        void should_close_on_calling_thread_if_executor_rejects() {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, Service.class, new SingletonLiteral());
+            config.component(AnotherDependency.class, Client.class, new SingletonLiteral());
+            Context context = config.getContext(executor);
+            executor.shutdown();
+            events.clear();
+
+            assertTimeoutPreemptively(java.time.Duration.ofSeconds(5), context::close);
+            assertEquals(List.of("client.destroy", "service.destroy", "base.destroy"), events);
+        }
+
+        @Test
+        void should_throw_exception_if_lifecycle_method_has_parameters() {
+            assertThrows(InjectionProvider.ComponentError.class, () -> config.component(TestComponent.class, IllegalCallback.class));
+        }
+
+        abstract static class Base implements TestComponent {
+            @PostConstruct
+            void initBase() {
+                events.add("base.init");
+            }
+
+            @PreDestroy
+            void destroyBase() {
+                events.add("base.destroy");
+            }
+        }
+
+        static class Service extends Base {
+            @Inject
+            Dependency dependency;
+            Dependency initialized;
+
+            @PostConstruct
+            void init() {
+                initialized = dependency;
+                events.add("service.init");
+            }
+
+            @PreDestroy
+            void destroy() {
+                events.add("service.destroy");
+            }
+        }
+
+        static class Client implements AnotherDependency {
+            @Inject
+            TestComponent service;
+
+            @PreDestroy
+            void destroy() {
+                events.add("client.destroy");
+            }
+        }
+
+        static class NamedClient implements AnotherDependency {
+            @Inject
+            @jakarta.inject.Named("a")
+            TestComponent service;
+
+            @PreDestroy
+            void destroy() {
+                events.add("client.destroy");
+            }
+        }
+
+        static class FailingClient implements AnotherDependency {
+            @Inject
+            TestComponent service;
+
+            @PreDestroy
+            void destroy() {
+                throw new IllegalStateException();
+            }
+        }
+
+        static class ParallelShutdown implements TestComponent {
+            @Inject
+            CyclicBarrier barrier;
+
+            @PreDestroy
+            void destroy() throws Exception {
+                barrier.await();
+            }
+        }
+
+        static class AnotherParallelShutdown implements Dependency {
+            @Inject
+            CyclicBarrier barrier;
+
+            @PreDestroy
+            void destroy() throws Exception {
+                barrier.await();
+            }
+        }
+
+        static class IllegalCallback implements TestComponent {
+            @PostConstruct
+            void init(Dependency dependency) {
+            }
+        }
+    }
+
+    @Nested
+    class InterceptorTest {
+        @Retention(RUNTIME)
+        @interface Traced {
+        }
+
+        @Retention(RUNTIME)
+        @interface Memoized {
+        }
+
+        private final List<String> events = new ArrayList<>();
+
+        @BeforeEach
+        void setUp() {
+            config.instance(Dependency.class, dependency);
+            config.intercept(Traced.class, invocation -> {
+                events.add("before " + invocation.method().getName() + Arrays.toString(invocation.arguments()));
+                Object result = invocation.proceed();
+                events.add("after " + result);
+                return result;
+            });
+        }
+
+        @Test
+        void should_intercept_annotated_method_through_generated_subclass() {
+            config.component(Calculator.class, Calculator.class);
+
+            Calculator calculator = config.getContext().get(ComponentRef.of(Calculator.class)).get();
+            assertEquals(3, calculator.add(1, 2));
+            assertEquals(List.of("before add[1, 2]", "after 3"), events);
+            assertSame(dependency, calculator.dependency);
+            assertSame(dependency, calculator.injected);
+            assertTrue(calculator.getClass().isSynthetic());
+        }
+
+        @Test
+        void should_call_not_intercepted_method_directly() throws NoSuchMethodException {
+            config.component(Calculator.class, Calculator.class);
+
+            Calculator calculator = config.getContext().get(ComponentRef.of(Calculator.class)).get();
+            assertEquals(-1, calculator.subtract(1, 2));
+            assertTrue(events.isEmpty());
+            assertSame(Calculator.class, calculator.getClass().getMethod("subtract", int.class, int.class).getDeclaringClass());
+        }
+
+        @Test
+        void should_apply_interceptors_in_registration_order() {
+            Map<Object, Object> cache = new HashMap<>();
+            config.intercept(Memoized.class, invocation -> {
+                events.add("memoized");
+                return cache.computeIfAbsent(invocation.arguments()[0], key -> {
+                    try {
+                        return invocation.proceed();
+                    } catch (Throwable e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            });
+            config.component(Calculator.class, Calculator.class);
+
+            Calculator calculator = config.getContext().get(ComponentRef.of(Calculator.class)).get();
+            assertEquals("1", calculator.format(1));
+            assertEquals("1", calculator.format(1));
+            assertEquals(1, calculator.formatted);
+            assertEquals(List.of("before format[1]", "memoized", "after 1", "before format[1]", "memoized", "after 1"), events);
+        }
+
+        @Test
+        void should_intercept_all_methods_of_annotated_component() {
+            config.component(TestComponent.class, TracedComponent.class);
+
+            TestComponent component = config.getContext().get(ComponentRef.of(TestComponent.class)).get();
+            assertSame(dependency, component.dependency());
+            assertEquals(List.of("before dependency[]", "after " + dependency), events);
+        }
+
+        @Test
+        void should_rethrow_declared_exception_and_wrap_undeclared_exception() {
+            config.intercept(Memoized.class, invocation -> {
+                throw new java.io.IOException();
+            });
+            config.component(Calculator.class, Calculator.class);
+            Calculator calculator = config.getContext().get(ComponentRef.of(Calculator.class)).get();
+
+            assertThrows(java.io.IOException.class, () -> calculator.read());
+            assertThrows(java.lang.reflect.UndeclaredThrowableException.class, () -> calculator.format(1));
+        }
+
+        @Test
+        void should_pass_primitive_arguments_and_results_through_interceptors() {
+            config.component(Primitives.class, Primitives.class);
+
+            Primitives primitives = config.getContext().get(ComponentRef.of(Primitives.class)).get();
+            assertEquals(7.5, primitives.sum(1L, 2.5, 3, true, 'a', "b"));
+            primitives.reset();
+            assertEquals(List.of("before sum[1, 2.5, 3, true, a, b]", "after 7.5", "before reset[]", "after null"), events);
+        }
+
+        @Test
+        void should_pass_wide_arguments_and_results_through_interceptors() {
+            config.component(Wide.class, Wide.class);
+
+            Wide wide = config.getContext().get(ComponentRef.of(Wide.class)).get();
+            assertEquals(Long.MAX_VALUE, wide.max(1L, Long.MAX_VALUE));
+            assertEquals(4.0, wide.scale(2.0, 1L, 2.0));
+            assertEquals(List.of("before max[1, " + Long.MAX_VALUE + "]", "after " + Long.MAX_VALUE, "before scale[2.0, 1, 2.0]", "after 4.0"), events);
+        }
+
+        @Test
+        void should_pass_many_arguments_through_interceptors_and_constructor() {
+            config.component(Many.class, Many.class);
+
+            Many many = config.getContext().get(ComponentRef.of(Many.class)).get();
+            assertEquals("1 2 3.0 4.0 5 6 7 true 9 10 11 12", many.join(1, 2L, 3.0, 4.0f, (short) 5, (byte) 6, '7', true, "9", 10L, 11, 12.0));
+            assertSame(dependency, many.dependency);
+            assertEquals(12, many.values.size());
+        }
+
+        @Test
+        void should_reuse_generated_subclass_across_configs() {
+            config.component(Calculator.class, Calculator.class);
+            ContextConfig another = new ContextConfig(InjectionEngine.METHOD_HANDLE);
+            another.instance(Dependency.class, dependency);
+            another.intercept(Traced.class, invocation -> -invocation.proceed().hashCode());
+            another.component(Calculator.class, Calculator.class);
+
+            Calculator calculator = config.getContext().get(ComponentRef.of(Calculator.class)).get();
+            Calculator negated = another.getContext().get(ComponentRef.of(Calculator.class)).get();
+            assertSame(calculator.getClass(), negated.getClass());
+            assertEquals(3, calculator.add(1, 2));
+            assertEquals(-3, negated.add(1, 2));
+        }
+
+        @Test
+        void should_intercept_component_from_other_class_loader() throws Exception {
+            Class<?> component = new ClassLoader(getClass().getClassLoader()) {
+                @Override
+                protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                    if (!name.equals(Greeter.class.getName())) return super.loadClass(name, resolve);
+                    synchronized (getClassLoadingLock(name)) {
+                        Class<?> loaded = findLoadedClass(name);
+                        if (loaded != null) return loaded;
+                        try (java.io.InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                            byte[] bytes = in.readAllBytes();
+                            return defineClass(name, bytes, 0, bytes.length);
+                        } catch (java.io.IOException e) {
+                            throw new ClassNotFoundException(name, e);
+                        }
+                    }
+                }
+            }.loadClass(Greeter.class.getName());
+            assertNotSame(Greeter.class, component);
+            config.component((Class<Object>) component, (Class<Object>) component);
+
+            Object greeter = config.getContext().get(ComponentRef.of((Class<Object>) component)).get();
+            assertSame(component.getClassLoader(), greeter.getClass().getClassLoader());
+            assertEquals("hello world", component.getMethod("greet", String.class).invoke(greeter, "world"));
+            assertEquals(List.of("before greet[world]", "after hello world"), events);
         }
 
-        @Singleton
-        @Pooled
-        static class MultiScopeAnnotation implements TestComponent {
+        @Test
+        void should_throw_exception_if_interceptor_registered_after_component_bound() {
+            config.component(Calculator.class, Calculator.class);
 
+            assertThrows(ContextConfig.ContextConfigException.class, () -> config.intercept(Memoized.class, Invocation::proceed));
         }
 
         @Test
-        void should_throw_exception_if_multi_scope_annotated() {
-            ContextConfig.ContextConfigException exception = assertThrows(ContextConfig.ContextConfigException.class, () -> config.component(TestComponent.class, MultiScopeAnnotation.class));
-            assertEquals("Unqualified annotations: @jakarta.inject.Singleton() , @com.geektime.tdd.Pooled() of class com.geektime.tdd.ContextTest$WithScope$MultiScopeAnnotation",
-                    exception.getMessage());
+        void should_throw_exception_if_intercepted_method_is_final() {
+            assertThrows(InjectionProvider.ComponentError.class, () -> config.component(FinalMethod.class, FinalMethod.class));
         }
 
+        static class Calculator {
+            final Dependency dependency;
+            @Inject
+            Dependency injected;
+            int formatted;
+
+            @Inject
+            Calculator(Dependency dependency) {
+                this.dependency = dependency;
+            }
 
-        @Test
-        void should_throw_exception_if_scope_undefined() {
-            ContextConfig.ContextConfigException exception = assertThrows(ContextConfig.ContextConfigException.class, () -> config.component(TestComponent.class, NotSingleton.class, new PooledLiteral()));
-            assertEquals("Unknown scope: interface com.geektime.tdd.Pooled",
-                    exception.getMessage());
+            @Traced
+            public int add(int left, int right) {
+                return left + right;
+            }
+
+            public int subtract(int left, int right) {
+                return left - right;
+            }
+
+            @Traced
+            @Memoized
+            String format(Integer value) {
+                formatted++;
+                return String.valueOf(value);
+            }
+
+            @Memoized
+            protected void read() throws java.io.IOException {
+            }
         }
 
-        @Nested
-        class WithQualifier {
+        @Traced
+        static class TracedComponent implements TestComponent {
+            @Inject
+            Dependency dependency;
 
-            @Test
-            void should_not_singleton_scope_by_default() {
-                config.component(TestComponent.class, NotSingleton.class, new SkywalkerLiteral());
-                Context context = config.getContext();
-                assertNotSame(context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get(), context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get());
+            @Override
+            public Dependency dependency() {
+                return dependency;
             }
+        }
 
+        @Traced
+        public static class Greeter {
+            public String greet(String name) {
+                return "hello " + name;
+            }
+        }
 
-            @Test
-            void should_bind_component_as_singleton_scoped() {
-                config.component(TestComponent.class, NotSingleton.class, new SingletonLiteral(), new SkywalkerLiteral());
-                Context context = config.getContext();
-                assertSame(context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get(), context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get());
+        @Traced
+        static class Primitives {
+            public double sum(long a, double b, int c, boolean d, char e, String f) {
+                return a + b + c + (d ? 1 : 0) + (e == 'a' ? 0 : 1) + f.length() - 1;
             }
 
-            @Test
-            void should_retrieve_scope_annotation_from_component() {
-                config.component(TestComponent.class, SingletonAnnotated.class, new SkywalkerLiteral());
-                Context context = config.getContext();
-                assertSame(context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get(), context.get(ComponentRef.of(TestComponent.class, new SkywalkerLiteral())).get());
+            void reset() {
+            }
+        }
+
+        @Traced
+        static class Wide {
+            public long max(long left, long right) {
+                return Math.max(left, right);
+            }
 
+            double scale(double value, long times, double factor) {
+                return value * times * factor;
             }
+        }
 
+        @Traced
+        static class Many {
+            final Dependency dependency;
+            final List<Object> values;
+
+            @Inject
+            Many(Dependency dependency, Provider<Dependency> provider, Dependency d3, Dependency d4, Dependency d5, Dependency d6, Dependency d7) {
+                this.dependency = dependency;
+                this.values = new ArrayList<>();
+            }
 
+            public String join(int a, long b, double c, float d, short e, byte f, char g, boolean h, String i, long j, int k, double l) {
+                values.clear();
+                values.addAll(List.of(a, b, c, d, e, f, g, h, i, j, k, l));
+                return a + " " + b + " " + c + " " + d + " " + e + " " + f + " " + g + " " + h + " " + i + " " + j + " " + k + " " + (int) l;
+            }
         }
 
+        static class FinalMethod {
+            @Traced
+            public final void run() {
+            }
+        }
     }
 
     @Nested
@@ -522,6 +1986,39 @@ class ContextTest {
             }
         }
 
+        @Test
+        void should_include_full_cycle_path_if_transitive_cyclic_dependency() {
+            config.component(TestComponent.class, CyclicComponentInjectConstructor.class);
+            config.component(Dependency.class, IndirectCyclicDependencyInjectConstructor.class);
+            config.component(AnotherDependency.class, IndirectCyclicAnotherDependencyInjectConstructor.class);
+            ContextConfig.ContextConfigError exception = assertThrows(ContextConfig.ContextConfigError.class,
+                    () -> config.getContext());
+
+            assertEquals(4, exception.getMessage().split(" -> ").length);
+            for (Class<?> type : List.of(TestComponent.class, Dependency.class, AnotherDependency.class))
+                assertTrue(exception.getMessage().contains(new Component(type, null).toString()));
+        }
+
+        @Test
+        void should_check_long_dependency_chain_without_recursion() {
+            Map<Component, ComponentProvider<?>> components = new HashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                List<ComponentRef<?>> dependencies = i == 0 ? List.of() : List.of(ComponentRef.of(Dependency.class, new NamedLiteral(String.valueOf(i - 1))));
+                components.put(new Component(Dependency.class, new NamedLiteral(String.valueOf(i))), new ComponentProvider<>() {
+                    @Override
+                    public Object get(final Context context) {
+                        return null;
+                    }
+
+                    @Override
+                    public List<ComponentRef<?>> getDependencies() {
+                        return dependencies;
+                    }
+                });
+            }
+            assertDoesNotThrow(() -> ContextConfig.checkDependencies(components));
+        }
+
         @Test
         void should_not_throw_exception_if_cyclic_dependency_via_provider_constructor() {
             config.component(TestComponent.class, CyclicComponentInjectConstructor.class);
@@ -655,6 +2152,395 @@ class ContextTest {
         }
     }
 
+    @Nested
+    class LazyInjectionTest {
+        @BeforeEach
+        void setUp() {
+            ExpensiveComponent.created.set(0);
+        }
+
+        @Test
+        void should_not_create_lazy_dependency_until_first_use() {
+            config.component(Expensive.class, ExpensiveComponent.class);
+            config.component(LazyConsumer.class, LazyConsumer.class);
+            Context context = config.getContext();
+
+            LazyConsumer consumer = context.get(ComponentRef.of(LazyConsumer.class)).get();
+            assertEquals(0, ExpensiveComponent.created.get());
+
+            assertEquals("expensive", consumer.expensive.name());
+            assertEquals("expensive", consumer.expensive.name());
+            assertEquals(1, ExpensiveComponent.created.get());
+        }
+
+        @Test
+        void should_create_lazy_dependency_once_across_threads() throws Exception {
+            config.component(Expensive.class, ExpensiveComponent.class);
+            config.component(LazyConsumer.class, LazyConsumer.class);
+            LazyConsumer consumer = config.getContext().get(ComponentRef.of(LazyConsumer.class)).get();
+
+            ExecutorService executor = Executors.newFixedThreadPool(16);
+            try {
+                List<Future<String>> names = executor.invokeAll(Collections.nCopies(64, () -> consumer.expensive.name()));
+                for (Future<String> name : names) assertEquals("expensive", name.get());
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(1, ExpensiveComponent.created.get());
+        }
+
+        @Test
+        void should_retrieve_lazy_component_from_context() {
+            config.component(Expensive.class, ExpensiveComponent.class);
+            Context context = config.getContext();
+
+            Expensive expensive = (Expensive) context.get(ComponentRef.of(Lazy.class, Expensive.class, null)).get();
+            assertEquals(0, ExpensiveComponent.created.get());
+            assertEquals("expensive", expensive.name());
+        }
+
+        @Test
+        void should_handle_object_methods_without_creating_lazy_dependency() {
+            config.component(Expensive.class, ExpensiveComponent.class);
+            config.component(LazyConsumer.class, LazyConsumer.class);
+            Expensive expensive = config.getContext().get(ComponentRef.of(LazyConsumer.class)).get().expensive;
+
+            assertEquals(expensive, expensive);
+            assertNotEquals(expensive, config.getContext().get(ComponentRef.of(LazyConsumer.class)).get().expensive);
+            assertEquals(System.identityHashCode(expensive), expensive.hashCode());
+            assertTrue(expensive.toString().contains(Expensive.class.getName()));
+            assertEquals(0, ExpensiveComponent.created.get());
+        }
+
+        @Test
+        void should_allow_cyclic_dependencies_through_lazy_injection() {
+            config.component(Expensive.class, CyclicExpensive.class);
+            config.component(LazyConsumer.class, LazyConsumer.class);
+
+            LazyConsumer consumer = config.getContext().get(ComponentRef.of(LazyConsumer.class)).get();
+            assertEquals("cyclic", consumer.expensive.name());
+        }
+
+        @Test
+        void should_throw_exception_if_lazy_dependency_not_found() {
+            config.component(LazyConsumer.class, LazyConsumer.class);
+
+            ContextConfig.ContextConfigError error = assertThrows(ContextConfig.ContextConfigError.class, () -> config.getContext());
+            assertTrue(error.getMessage().contains(Expensive.class.getName()));
+        }
+
+        @Test
+        void should_throw_exception_if_lazy_dependency_is_not_interface() {
+            assertThrows(InjectionProvider.ComponentError.class, () -> config.component(LazyClass.class, LazyClass.class));
+        }
+
+        interface Expensive {
+            String name();
+        }
+
+        static class ExpensiveComponent implements Expensive {
+            static final AtomicInteger created = new AtomicInteger();
+
+            public ExpensiveComponent() throws InterruptedException {
+                created.incrementAndGet();
+                Thread.sleep(10);
+            }
+
+            @Override
+            public String name() {
+                return "expensive";
+            }
+        }
+
+        static class CyclicExpensive implements Expensive {
+            @Inject
+            LazyConsumer consumer;
+
+            @Override
+            public String name() {
+                return "cyclic";
+            }
+        }
+
+        static class LazyConsumer {
+            final Expensive expensive;
+
+            @Inject
+            public LazyConsumer(@Lazy Expensive expensive) {
+                this.expensive = expensive;
+            }
+        }
+
+        static class LazyClass {
+            @Inject
+            @Lazy
+            ExpensiveComponent expensive;
+        }
+    }
+
+    @Nested
+    class InstrumentationTest {
+        private final ComponentMetrics metrics = new ComponentMetrics();
+
+        @BeforeEach
+        void setUp() {
+            config = new ContextConfig(InjectionEngine.REFLECTION, metrics);
+        }
+
+        @Test
+        void should_count_instances_and_record_construction_and_injection_time() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, InstrumentedComponent.class, new NamedLiteral("instrumented"));
+            Context context = config.getContext();
+
+            ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class, new NamedLiteral("instrumented"));
+            context.get(ref).get();
+            context.get(ref).get();
+
+            ComponentMetrics.Metrics component = metrics.of(new Component(TestComponent.class, new NamedLiteral("instrumented")));
+            assertEquals(2, component.instances());
+            assertEquals(2, component.injection().count());
+            assertEquals(0, component.singletonInitialization().count());
+            assertTrue(component.construction().percentile(1.0) >= component.construction().totalNanos() / 2);
+            assertEquals(1, metrics.contextCreation().count());
+        }
+
+        @Test
+        void should_record_singleton_initialization_once() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, InstrumentedComponent.class, new SingletonLiteral());
+            Context context = config.getContext();
+
+            context.get(ComponentRef.of(TestComponent.class)).get();
+            context.get(ComponentRef.of(TestComponent.class)).get();
+
+            ComponentMetrics.Metrics component = metrics.of(new Component(TestComponent.class, null));
+            assertEquals(1, component.instances());
+            assertEquals(1, component.singletonInitialization().count());
+        }
+
+        @Test
+        void should_not_instrument_instances() {
+            config.instance(Dependency.class, dependency);
+            config.getContext().get(ComponentRef.of(Dependency.class)).get();
+
+            assertTrue(metrics.components().isEmpty());
+        }
+
+        @Test
+        void should_emit_jfr_events_for_instantiation() throws Exception {
+            config = new ContextConfig(InjectionEngine.REFLECTION, Instrumentation.jfr());
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, InstrumentedComponent.class, new SingletonLiteral());
+
+            Path file = Files.createTempFile("instrumentation", ".jfr");
+            try (Recording recording = new Recording()) {
+                recording.enable("com.geektime.tdd.Instantiation");
+                recording.enable("com.geektime.tdd.SingletonInitialization");
+                recording.enable("com.geektime.tdd.ContextCreation");
+                recording.start();
+                config.getContext().get(ComponentRef.of(TestComponent.class)).get();
+                recording.stop();
+                recording.dump(file);
+
+                Set<String> events = RecordingFile.readAllEvents(file).stream()
+                        .map(e -> e.getEventType().getName()).collect(Collectors.toSet());
+                assertEquals(Set.of("com.geektime.tdd.Instantiation", "com.geektime.tdd.SingletonInitialization",
+                        "com.geektime.tdd.ContextCreation"), events);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        @Test
+        void should_report_critical_path_and_parallel_levels() {
+            Component a = new Component(Dependency.class, null);
+            Component b = new Component(AnotherDependency.class, null);
+            Component c = new Component(TestComponent.class, null);
+            Component d = new Component(Object.class, null);
+            Map<Component, Long> self = Map.of(a, 10L, b, 5L, c, 20L, d, 1L);
+            StartupReport report = new StartupReport(List.of(a, b, c, d),
+                    Map.of(a, List.of(), b, List.of(a), c, List.of(a), d, List.of(b, c)), self::get);
+
+            assertEquals(List.of(a, c, d), report.criticalPath());
+            assertEquals(31, report.criticalPathNanos());
+            assertEquals(new StartupReport.Node(b, 5, 15, 1), report.node(b));
+            assertEquals(List.of(List.of(a), List.of(b, c), List.of(d)), report.levels());
+            assertEquals(List.of(List.of(b, c)), report.widestLevels(1));
+            assertTrue(report.dot().contains("n0 [label=\"" + a + "\\nself 0.000 ms\\ncumulative 0.000 ms\", color=red]"));
+            assertTrue(report.json().startsWith("{\"criticalPath\":[\"" + a + "\",\"" + c + "\",\"" + d + "\"],\"criticalPathNanos\":31,"));
+        }
+
+        @Test
+        void should_report_startup_from_measured_singleton_initialization() {
+            config.instance(Dependency.class, dependency);
+            config.component(TestComponent.class, InstrumentedComponent.class, new SingletonLiteral());
+            config.getContext(Runnable::run);
+
+            StartupReport report = config.startupReport(metrics);
+
+            assertEquals(List.of(new Component(Dependency.class, null), new Component(TestComponent.class, null)), report.criticalPath());
+            assertTrue(report.node(new Component(TestComponent.class, null)).selfNanos() > 0);
+            assertTrue(report.text().startsWith("Critical path"));
+        }
+
+        @Test
+        void should_report_startup_of_child_config_depending_on_parent() {
+            ContextConfig parent = new ContextConfig();
+            parent.instance(Dependency.class, dependency);
+            config = new ContextConfig(parent.getContext(), InjectionEngine.REFLECTION, metrics);
+            config.component(TestComponent.class, InstrumentedComponent.class, new SingletonLiteral());
+            config.getContext(Runnable::run);
+
+            StartupReport report = config.startupReport(metrics);
+
+            assertEquals(List.of(new Component(TestComponent.class, null)), report.criticalPath());
+            assertNull(report.node(new Component(Dependency.class, null)));
+            assertFalse(report.dot().contains("-> null"));
+        }
+
+        static class InstrumentedComponent implements TestComponent {
+            @Inject
+            Dependency dependency;
+        }
+    }
+
+    @Nested
+    class BulkBindingTest {
+        static class Component implements TestComponent {
+            @Inject
+            Dependency dependency;
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        @Test
+        void should_bind_all_components_and_instances() {
+            config.bindAll(List.of(
+                    ContextConfig.Binding.instance(Dependency.class, dependency),
+                    ContextConfig.Binding.component(TestComponent.class, Component.class),
+                    ContextConfig.Binding.component(TestComponent.class, Component.class, new NamedLiteral("named"), new SingletonLiteral())));
+            Context context = config.getContext();
+
+            assertSame(dependency, context.get(ComponentRef.of(TestComponent.class)).get().dependency());
+            TestComponent named = context.get(ComponentRef.of(TestComponent.class, new NamedLiteral("named"))).get();
+            assertSame(named, context.get(ComponentRef.of(TestComponent.class, new NamedLiteral("named"))).get());
+        }
+
+        @Test
+        void should_not_register_any_binding_if_one_is_duplicated() {
+            config.instance(Dependency.class, dependency);
+
+            assertThrows(ContextConfig.ContextConfigException.class, () -> config.bindAll(List.of(
+                    ContextConfig.Binding.component(TestComponent.class, Component.class),
+                    ContextConfig.Binding.instance(Dependency.class, dependency))));
+
+            Context context = config.getContext();
+            assertTrue(context.get(ComponentRef.of(TestComponent.class)).isEmpty());
+            assertSame(dependency, context.get(ComponentRef.of(Dependency.class)).get());
+        }
+    }
+
+    @Nested
+    class CompiledContextTest {
+        static class Engine {
+        }
+
+        @Singleton
+        static class Radio {
+            final boolean reflective = StackWalker.getInstance()
+                    .walk(frames -> frames.anyMatch(frame -> frame.getClassName().equals(InjectionProvider.class.getName())));
+        }
+
+        static class Car {
+            final Engine engine;
+            @Inject
+            Engine spare;
+            Radio radio;
+
+            @Inject
+            Car(Engine engine) {
+                this.engine = engine;
+            }
+
+            @Inject
+            void install(Radio radio) {
+                this.radio = radio;
+            }
+        }
+
+        static class Garage {
+            @Inject
+            private Car car;
+            @Inject
+            Provider<Car> cars;
+        }
+
+        @BeforeEach
+        void setUp() {
+            config.component(Engine.class, Engine.class);
+            config.component(Radio.class, Radio.class);
+            config.component(Car.class, Car.class);
+            config.component(Car.class, Car.class, new NamedLiteral("rental"));
+            config.component(Garage.class, Garage.class);
+        }
+
+        @Test
+        void should_generate_hidden_context_class() {
+            assertTrue(config.getCompiledContext().getClass().isHidden());
+        }
+
+        @Test
+        void should_construct_components_as_configured() {
+            Context context = config.getCompiledContext();
+
+            Car car = context.get(ComponentRef.of(Car.class)).get();
+            assertNotNull(car.engine);
+            assertNotNull(car.spare);
+            assertNotSame(car.engine, car.spare);
+            assertSame(context.get(ComponentRef.of(Radio.class)).get(), car.radio);
+            assertNotSame(car, context.get(ComponentRef.of(Car.class, new NamedLiteral("rental"))).get());
+        }
+
+        @Test
+        void should_fall_back_to_providers_for_inaccessible_members_and_containers() {
+            Context context = config.getCompiledContext();
+
+            Garage garage = context.get(ComponentRef.of(Garage.class)).get();
+            assertNotNull(garage.car);
+            assertSame(context.get(ComponentRef.of(Radio.class)).get(), garage.cars.get().radio);
+            assertTrue(context.get(ComponentRef.of(String.class)).isEmpty());
+        }
+
+        @Test
+        void should_reuse_generated_class_for_same_plan_shape() {
+            assertSame(config.getCompiledContext().getClass(), config.getCompiledContext().getClass());
+        }
+
+        @Test
+        void should_construct_singletons_directly_and_share_them_with_providers() {
+            Context context = config.getCompiledContext();
+
+            Radio radio = context.get(ComponentRef.of(Radio.class)).get();
+            assertFalse(radio.reflective);
+            assertSame(radio, context.get(ComponentRef.of(Garage.class)).get().cars.get().radio);
+        }
+
+        @Test
+        void should_not_serve_singletons_after_close() {
+            Context context = config.getCompiledContext();
+            context.get(ComponentRef.of(Radio.class)).get();
+
+            context.close();
+
+            assertThrows(Lifecycle.LifecycleException.class, () -> context.get(ComponentRef.of(Radio.class)));
+            assertThrows(Lifecycle.LifecycleException.class, () -> context.getOrNull(ComponentRef.of(Radio.class)));
+        }
+    }
+
     @Nested
     class DSL {
         interface Api {
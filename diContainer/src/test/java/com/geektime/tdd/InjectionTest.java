@@ -9,18 +9,24 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.lang.reflect.ParameterizedType;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 @Nested
 class InjectionTest {
 
     private Dependency dependency = mock(Dependency.class);
-    private Context context = mock(Context.class);
+    private Context context = mock(Context.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
     private Provider<Dependency> dependencyProvider = mock(Provider.class);
     private ParameterizedType providerDependencyType;
 
@@ -66,6 +72,12 @@ class InjectionTest {
                 assertSame(dependency, component.dependency);
             }
 
+            @Test
+            void should_share_class_metadata_between_providers() {
+                assertSame(new InjectionProvider<>(InjectConstructor.class).getDependencies(),
+                        new InjectionProvider<>(InjectConstructor.class).getDependencies());
+            }
+
             @Test
             void should_include_constructor_dependency_in_dependencies() {
                 InjectionProvider<InjectConstructor> provider = new InjectionProvider<>(InjectConstructor.class);
@@ -528,4 +540,63 @@ class InjectionTest {
 
     }
 
-}
\ No newline at end of file
+    @Nested
+    class MethodHandleEngineTest {
+
+        static class SuperComponent {
+            Dependency superDependency;
+
+            @Inject
+            private void install(Dependency dependency) {
+                this.superDependency = dependency;
+            }
+        }
+
+        static class Component extends SuperComponent {
+            Dependency dependency;
+
+            @Inject
+            private Provider<Dependency> provider;
+
+            @Inject
+            public Component(Dependency dependency) {
+                this.dependency = dependency;
+            }
+        }
+
+        static class StaticComponent {
+            @Inject
+            static Dependency dependency;
+        }
+
+        @Test
+        void should_inject_dependencies_via_method_handles() {
+            Component component = new InjectionProvider<>(Component.class, InjectionEngine.METHOD_HANDLE).get(context);
+            assertSame(dependency, component.dependency);
+            assertSame(dependency, component.superDependency);
+            assertSame(dependencyProvider, component.provider);
+        }
+
+        @Test
+        void should_inject_static_members_via_method_handles() {
+            new InjectionProvider<>(StaticComponent.class, InjectionEngine.METHOD_HANDLE).statics(context);
+            assertSame(dependency, StaticComponent.dependency);
+        }
+    }
+
+    @Nested
+    class ResolutionPlanTest {
+        @Test
+        void should_resolve_linked_dependencies_without_context_lookup() {
+            InjectionProvider<ConstructorInjectionTest.InjectConstructor> provider = new InjectionProvider<>(ConstructorInjectionTest.InjectConstructor.class);
+            Map<Component, ComponentProvider<?>> components = Map.of(
+                    new Component(Dependency.class, null), (ComponentProvider<Dependency>) c -> dependency,
+                    new Component(ConstructorInjectionTest.InjectConstructor.class, null), provider);
+            new ResolutionPlan(components, components.keySet()).link(context);
+            Mockito.reset(context);
+
+            assertSame(dependency, provider.get(context).dependency);
+            verify(context, never()).get(any());
+        }
+    }
+}
@@ -97,6 +97,24 @@ record PooledLiteral() implements Pooled {
     }
 }
 
+record PoolScopedLiteral(int size, long timeoutMillis) implements PoolScoped {
+    PoolScopedLiteral(int size) {
+        this(size, 30_000);
+    }
+
+    @Override
+    public Class<? extends Annotation> annotationType() {
+        return PoolScoped.class;
+    }
+}
+
+record CachedLiteral(long weight, long ttlMillis, boolean soft) implements Cached {
+    @Override
+    public Class<? extends Annotation> annotationType() {
+        return Cached.class;
+    }
+}
+
 class PooledProvider<T> implements ComponentProvider<T> {
     public static final int MAX = 2;
     private List<T> pool = new ArrayList<>();